@@ -15,4 +15,5 @@ module uk.ac.soton.comp1206 {
     exports uk.ac.soton.comp1206.component;
     exports uk.ac.soton.comp1206.game;
     exports uk.ac.soton.comp1206.media;
+    exports uk.ac.soton.comp1206.scores;
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BlockSprites is an atlas of every way a block can look, pre-rendered once for a cell size.
+ *
+ * The atlas has a column for each of the GameBlock colours, with the empty block in column 0, and a row for each
+ * state: the plain block, the cursor highlight, and the centre dot of the piece previews. The cursor and centre rows
+ * hold only the marker for a block of that value, drawn on a BoardOverlay above the block. Painting a block or a
+ * marker is then a single drawImage from the atlas, instead of filling, shading and stroking it every time.
+ *
+ * Atlases are shared between every block and board of the same cell size, and the few most recently used sizes are
+ * cached. Create them on the JavaFX thread.
+ */
+public class BlockSprites {
+
+    private static final Logger logger = LogManager.getLogger(BlockSprites.class);
+
+    /**
+     * A plain block
+     */
+    public static final int PLAIN = 0;
+
+    /**
+     * The cursor highlight over a block
+     */
+    public static final int CURSOR = 1;
+
+    /**
+     * The centre dot over a block
+     */
+    public static final int CENTRE = 2;
+
+    /**
+     * Number of states in the atlas
+     */
+    private static final int STATES = 3;
+
+    /**
+     * Number of atlases kept for reuse. Resizing the window renders a new atlas for every cell size it passes through,
+     * so only the most recently used are kept; boards still hold on to the atlas they are drawing with.
+     */
+    private static final int CACHED = 8;
+
+    /**
+     * Atlases recently rendered, keyed by cell width and height in pixels, least recently used first
+     */
+    private static final LinkedHashMap<Long, BlockSprites> atlases = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, BlockSprites> eldest) {
+            return size() > CACHED;
+        }
+    };
+
+    /**
+     * The rendered atlas
+     */
+    private final Image atlas;
+
+    /**
+     * Width of each sprite in pixels
+     */
+    private final int width;
+
+    /**
+     * Height of each sprite in pixels
+     */
+    private final int height;
+
+    /**
+     * Get the atlas for a cell size, rendering it if the size has not been used recently
+     * @param width cell width
+     * @param height cell height
+     * @return sprites of that size
+     */
+    public static BlockSprites forSize(double width, double height) {
+        int spriteWidth = Math.max(1, (int) Math.ceil(width));
+        int spriteHeight = Math.max(1, (int) Math.ceil(height));
+        return atlases.computeIfAbsent(((long) spriteWidth << 32) | spriteHeight,
+                key -> new BlockSprites(spriteWidth, spriteHeight));
+    }
+
+    /**
+     * Render an atlas of the given sprite size
+     * @param width width of each sprite
+     * @param height height of each sprite
+     */
+    private BlockSprites(int width, int height) {
+        this.width = width;
+        this.height = height;
+        logger.info("Rendering block sprites: {} x {}", width, height);
+
+        var canvas = new Canvas(width * GameBlock.COLOURS.length, height * STATES);
+        var gc = canvas.getGraphicsContext2D();
+        for(int value = 0; value < GameBlock.COLOURS.length; value++) {
+            for(int state = 0; state < STATES; state++) {
+                render(gc, value, state, value * width, state * height);
+            }
+        }
+        var parameters = new SnapshotParameters();
+        parameters.setFill(Color.TRANSPARENT);
+        atlas = canvas.snapshot(parameters, null);
+    }
+
+    /**
+     * Draw a block or marker sprite into a cell
+     * @param gc graphics context to draw on
+     * @param value block value, 0 for empty
+     * @param state PLAIN, CURSOR or CENTRE
+     * @param x left of the cell
+     * @param y top of the cell
+     * @param cellWidth width of the cell
+     * @param cellHeight height of the cell
+     */
+    public void draw(GraphicsContext gc, int value, int state, double x, double y, double cellWidth, double cellHeight) {
+        if(value < 0 || value >= GameBlock.COLOURS.length) {
+            value = 0;
+        }
+        gc.drawImage(atlas, value * width, state * height, width, height, x, y, cellWidth, cellHeight);
+    }
+
+    /**
+     * Render one sprite into the atlas. Plain sprites are whole blocks; cursor and centre sprites are only the marker,
+     * drawn over a block of that value on an overlay.
+     * @param gc graphics context of the atlas canvas
+     * @param value block value, 0 for empty
+     * @param state PLAIN, CURSOR or CENTRE
+     * @param left left of the sprite
+     * @param top top of the sprite
+     */
+    private void render(GraphicsContext gc, int value, int state, double left, double top) {
+        if(state == CURSOR) {
+            if(value == 0) {
+                gc.setFill(Color.WHITE.deriveColor(0, 0, 1, 0.7));
+                gc.fillRect(left, top, width, height);
+            }
+            gc.setStroke(Color.WHITE);
+            gc.strokeRect(left + 0.5, top + 0.5, width - 1, height - 1);
+        } else if(state == CENTRE) {
+            gc.setFill(value == 0 ? Color.web("BLACK", 0.5) : Color.color(1, 1, 1, 0.35));
+            gc.fillOval(left + width / 4.0, top + height / 4.0, width / 2.0, height / 2.0);
+        } else if(value == 0) {
+            //Empty
+            gc.setFill(Color.web("BLACK", 0.5));
+            gc.fillRect(left, top, width, height);
+            gc.setStroke(Color.GREY);
+            gc.strokeRect(left + 0.5, top + 0.5, width - 1, height - 1);
+        } else {
+            //Colour fill, with a lighter triangle in the lower left
+            gc.setFill(GameBlock.COLOURS[value]);
+            gc.fillRect(left, top, width, height);
+            gc.setFill(Color.color(1, 1, 1, 0.35));
+            gc.fillPolygon(new double[]{left, left, left + width}, new double[]{top, top + height, top + height}, 3);
+            gc.setStroke(Color.BLACK);
+            gc.strokeRect(left + 0.5, top + 0.5, width - 1, height - 1);
+        }
+    }
+}
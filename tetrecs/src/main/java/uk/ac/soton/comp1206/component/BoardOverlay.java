@@ -0,0 +1,283 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.game.Grid;
+
+/**
+ * The BoardOverlay is a transparent Canvas laid over a board, holding the markers drawn on top of the blocks: the
+ * mouse hover highlight, the keyboard cursor, the centre dot of the piece previews and the ghost of where a piece
+ * would be placed.
+ *
+ * Moving a marker clears and redraws only the cells it leaves and enters on the overlay, so the blocks underneath are
+ * never repainted. The overlay ignores the mouse, so events still reach the board below.
+ */
+public class BoardOverlay extends Canvas {
+
+    /**
+     * Tint of a ghost piece which can be placed
+     */
+    private static final Color GHOST_VALID = Color.color(0, 1, 0, 0.4);
+
+    /**
+     * Tint of a ghost piece which cannot be placed
+     */
+    private static final Color GHOST_INVALID = Color.color(1, 0, 0, 0.4);
+
+    /**
+     * The grid of the board underneath, used to pick the marker for an empty or filled cell
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    private final int rows;
+
+    /**
+     * Column and row under the mouse, or -1 if the mouse is not over the board
+     */
+    private int hoverX = -1;
+    private int hoverY = -1;
+
+    /**
+     * Column and row of the keyboard cursor, or -1 if it isn't shown
+     */
+    private int cursorX = -1;
+    private int cursorY = -1;
+
+    /**
+     * Column and row of the centre dot, or -1 if it isn't shown
+     */
+    private int centreX = -1;
+    private int centreY = -1;
+
+    /**
+     * Blocks of the ghost piece, or null if no ghost is shown
+     */
+    private int[][] ghostBlocks;
+
+    /**
+     * Column and row of the centre of the ghost piece
+     */
+    private int ghostX = -1;
+    private int ghostY = -1;
+
+    /**
+     * Whether the ghost piece can be placed where it is
+     */
+    private boolean ghostValid;
+
+    /**
+     * Pre-rendered markers for the size of a cell
+     */
+    private BlockSprites sprites;
+
+    /**
+     * Create an overlay for a board
+     * @param grid the grid of the board
+     * @param width width of the board
+     * @param height height of the board
+     */
+    public BoardOverlay(Grid grid, double width, double height) {
+        super(width, height);
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        setMouseTransparent(true);
+        sprites = BlockSprites.forSize(width / cols, height / rows);
+    }
+
+    /**
+     * Move the hover highlight
+     * @param x column, or -1 to remove it
+     * @param y row, or -1 to remove it
+     */
+    public void setHover(int x, int y) {
+        if(x < 0 || y < 0) {
+            x = -1;
+            y = -1;
+        }
+        if(x == hoverX && y == hoverY) {
+            return;
+        }
+        int oldX = hoverX;
+        int oldY = hoverY;
+        hoverX = x;
+        hoverY = y;
+        repaint(oldX, oldY);
+        repaint(hoverX, hoverY);
+    }
+
+    /**
+     * Remove the hover highlight if it is on the given cell
+     * @param x column
+     * @param y row
+     */
+    public void removeHover(int x, int y) {
+        if(x == hoverX && y == hoverY) {
+            setHover(-1, -1);
+        }
+    }
+
+    /**
+     * Move the keyboard cursor
+     * @param x column, or -1 to remove it
+     * @param y row, or -1 to remove it
+     */
+    public void setCursor(int x, int y) {
+        int oldX = cursorX;
+        int oldY = cursorY;
+        cursorX = x;
+        cursorY = y;
+        repaint(oldX, oldY);
+        repaint(cursorX, cursorY);
+    }
+
+    /**
+     * Show the centre dot on a cell
+     * @param x column, or -1 to remove it
+     * @param y row, or -1 to remove it
+     */
+    public void setCentre(int x, int y) {
+        int oldX = centreX;
+        int oldY = centreY;
+        centreX = x;
+        centreY = y;
+        repaint(oldX, oldY);
+        repaint(centreX, centreY);
+    }
+
+    /**
+     * Show the ghost of a piece centred on a cell, tinted by whether it can be placed there
+     * @param blocks blocks of the piece
+     * @param x column of the centre
+     * @param y row of the centre
+     * @param valid whether the piece can be placed there
+     */
+    public void setGhost(int[][] blocks, int x, int y, boolean valid) {
+        if(blocks == ghostBlocks && x == ghostX && y == ghostY && valid == ghostValid) {
+            return;
+        }
+        int oldX = ghostX;
+        int oldY = ghostY;
+        ghostBlocks = blocks;
+        ghostX = x;
+        ghostY = y;
+        ghostValid = valid;
+        repaintAround(oldX, oldY);
+        repaintAround(ghostX, ghostY);
+    }
+
+    /**
+     * Remove the ghost piece
+     */
+    public void clearGhost() {
+        if(ghostBlocks == null) {
+            return;
+        }
+        ghostBlocks = null;
+        repaintAround(ghostX, ghostY);
+        ghostX = -1;
+        ghostY = -1;
+    }
+
+    /**
+     * Called when a cell of the grid changes value, as a marker may look different over a filled cell
+     * @param x column
+     * @param y row
+     */
+    public void cellChanged(int x, int y) {
+        if(isMarked(x, y)) {
+            repaint(x, y);
+        }
+    }
+
+    /**
+     * Clear the overlay and draw every marker again, used when the overlay changes size
+     */
+    public void repaintAll() {
+        sprites = BlockSprites.forSize(getWidth() / cols, getHeight() / rows);
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+        repaint(hoverX, hoverY);
+        repaint(cursorX, cursorY);
+        repaint(centreX, centreY);
+        repaintAround(ghostX, ghostY);
+    }
+
+    /**
+     * Repaint the 3x3 cells a piece centred on a cell could cover
+     * @param x column of the centre, ignored if negative
+     * @param y row of the centre, ignored if negative
+     */
+    private void repaintAround(int x, int y) {
+        if(x < 0 || y < 0) {
+            return;
+        }
+        for(int cellX = Math.max(0, x - 1); cellX <= Math.min(cols - 1, x + 1); cellX++) {
+            for(int cellY = Math.max(0, y - 1); cellY <= Math.min(rows - 1, y + 1); cellY++) {
+                repaint(cellX, cellY);
+            }
+        }
+    }
+
+    /**
+     * Clear a cell of the overlay and draw any markers on it
+     * @param x column, ignored if negative
+     * @param y row, ignored if negative
+     */
+    protected void repaint(int x, int y) {
+        if(x < 0 || y < 0) {
+            return;
+        }
+        double width = getWidth() / cols;
+        double height = getHeight() / rows;
+        double left = x * width;
+        double top = y * height;
+        var gc = getGraphicsContext2D();
+        gc.clearRect(left, top, width, height);
+        int value = grid.get(x, y);
+        if(x == centreX && y == centreY) {
+            sprites.draw(gc, value, BlockSprites.CENTRE, left, top, width, height);
+        }
+        if(isGhost(x, y)) {
+            gc.setFill(ghostValid ? GHOST_VALID : GHOST_INVALID);
+            gc.fillRect(left, top, width, height);
+        }
+        if((x == hoverX && y == hoverY) || (x == cursorX && y == cursorY)) {
+            sprites.draw(gc, value, BlockSprites.CURSOR, left, top, width, height);
+        }
+    }
+
+    /**
+     * Whether a block of the ghost piece covers a cell
+     * @param x column
+     * @param y row
+     * @return true if the ghost covers the cell
+     */
+    private boolean isGhost(int x, int y) {
+        if(ghostBlocks == null) {
+            return false;
+        }
+        int pieceX = x - ghostX + 1;
+        int pieceY = y - ghostY + 1;
+        return pieceX >= 0 && pieceY >= 0 && pieceX < ghostBlocks.length && pieceY < ghostBlocks[pieceX].length
+                && ghostBlocks[pieceX][pieceY] != 0;
+    }
+
+    /**
+     * Whether any marker is on a cell
+     * @param x column
+     * @param y row
+     * @return true if the cell has a marker
+     */
+    private boolean isMarked(int x, int y) {
+        return (x == hoverX && y == hoverY) || (x == cursorX && y == cursorY) || (x == centreX && y == centreY)
+                || isGhost(x, y);
+    }
+}
@@ -0,0 +1,515 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.value.ChangeListener;
+import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.paint.Color;
+import javafx.scene.transform.Scale;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CellClickedListener;
+import uk.ac.soton.comp1206.game.Grid;
+import uk.ac.soton.comp1206.game.PlacementMap;
+import uk.ac.soton.comp1206.ui.GamePane;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.util.BitSet;
+import java.util.Set;
+
+/**
+ * A CanvasGameBoard is a visual component to represent a GameBoard, drawing every cell of a linked grid onto one Canvas.
+ *
+ * Unlike the GameBoard, which holds a GameBlock canvas for each cell, the CanvasGameBoard draws its blocks onto a
+ * single canvas whatever the size of the grid, with a BoardOverlay above it for the hover highlight and keyboard
+ * cursor. Changes to the grid mark their cells dirty, and only the dirty cells are repainted, once per frame. Moving
+ * the mouse or cursor only redraws the overlay. Mouse events are mapped to cells from their position, so there is one
+ * handler for the whole board.
+ *
+ * When the board is inside a GamePane drawing at native resolution, its canvases are sized in device pixels for the
+ * pane's render scale and shrunk back to the board's size with a transform, so blocks are drawn sharply instead of
+ * being bitmap scaled. The canvases are only reallocated when the number of pixels they need actually changes.
+ *
+ * The CanvasGameBoard is only a visual representation and should not contain game logic or model logic in it, which
+ * should take place in the Grid.
+ */
+public class CanvasGameBoard extends Pane {
+
+    private static final Logger logger = LogManager.getLogger(CanvasGameBoard.class);
+
+    /**
+     * How much a fading cell's opacity drops each frame
+     */
+    private static final double FADE_STEP = 0.05;
+
+    /**
+     * Number of columns in the board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the board
+     */
+    private final int rows;
+
+    /**
+     * The grid this board represents
+     */
+    private final Grid grid;
+
+    /**
+     * Cells which need repainting, indexed by x * rows + y
+     */
+    private final BitSet dirty = new BitSet();
+
+    /**
+     * Drives the fades of every cell on this board from one timer
+     */
+    protected final EffectScheduler effects = new EffectScheduler(this::fadeStep);
+
+    /**
+     * The visual width and height of the board
+     */
+    private final double width;
+    private final double height;
+
+    /**
+     * The blocks of the board
+     */
+    protected final Canvas content;
+
+    /**
+     * Shrinks the content and overlay canvases from device pixels back to the board's size
+     */
+    private final Scale contentScale = new Scale(1, 1, 0, 0);
+    private final Scale overlayScale = new Scale(1, 1, 0, 0);
+
+    /**
+     * Resizes the canvases when the render scale of the GamePane changes
+     */
+    private final ChangeListener<Number> renderScaleListener = (observable, oldScale, scale) ->
+            setRenderScale(scale.doubleValue());
+
+    /**
+     * Holds the hover highlight, keyboard cursor and ghost piece above the blocks
+     */
+    protected final BoardOverlay overlay;
+
+    /**
+     * Column and row under the mouse, or -1 if the mouse is not over the board
+     */
+    private int hoverX = -1;
+    private int hoverY = -1;
+
+    /**
+     * Column and row of the keyboard cursor, or -1 if it has not been moved yet
+     */
+    private int cursorX = -1;
+    private int cursorY = -1;
+
+    /**
+     * Where the current piece can be placed, or null if no ghost piece is shown
+     */
+    private PlacementMap placements;
+
+    /**
+     * Whether the ghost piece needs updating on the next frame
+     */
+    private boolean ghostStale = false;
+
+    /**
+     * Pre-rendered sprites for the size of a cell
+     */
+    private BlockSprites sprites;
+
+    /**
+     * Repaints dirty cells once per frame, only running while there is something to paint
+     */
+    private final AnimationTimer painter = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            paintFrame();
+        }
+    };
+
+    /**
+     * Whether the painter is running
+     */
+    private boolean painting = false;
+
+    /**
+     * The listener to call when a cell is clicked
+     */
+    private CellClickedListener cellClickedListener;
+
+    /**
+     * The listener to call when a cell is right clicked
+     */
+    private CellClickedListener rightClickedListener;
+
+    /**
+     * Create a new CanvasGameBoard, based off a given grid, with a visual width and height
+     * @param grid linked grid
+     * @param width the visual width
+     * @param height the visual height
+     */
+    public CanvasGameBoard(Grid grid, double width, double height) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.width = width;
+        this.height = height;
+
+        logger.info("Building canvas grid: {} x {}", cols, rows);
+
+        content = new Canvas(width, height);
+        overlay = new BoardOverlay(grid, width, height);
+        content.getTransforms().add(contentScale);
+        overlay.getTransforms().add(overlayScale);
+        getChildren().addAll(content, overlay);
+        setMinSize(width, height);
+        setPrefSize(width, height);
+        setMaxSize(width, height);
+
+        //Mark a cell dirty whenever its value changes in the grid
+        for(var x = 0; x < cols; x++) {
+            for(var y = 0; y < rows; y++) {
+                final int cellX = x;
+                final int cellY = y;
+                grid.getGridProperty(x, y).addListener((observable, oldValue, newValue) -> cellChanged(cellX, cellY));
+            }
+        }
+
+        setOnMouseClicked(this::mouseClicked);
+        setOnMouseMoved(this::mouseMoved);
+        setOnMouseExited(e -> setHover(-1, -1));
+
+        //Follow the render scale of the GamePane the board is shown in
+        sceneProperty().addListener((observable, oldScene, scene) -> {
+            renderScaleOf(oldScene, false);
+            renderScaleOf(scene, true);
+        });
+
+        paintAll();
+    }
+
+    /**
+     * Start or stop following the render scale of a scene's GamePane
+     * @param scene the scene, ignored if null or not drawn in a GamePane
+     * @param follow true to start following, false to stop
+     */
+    private void renderScaleOf(Scene scene, boolean follow) {
+        if(scene == null || !(scene.getRoot() instanceof GamePane gamePane)) {
+            return;
+        }
+        if(follow) {
+            gamePane.renderScaleProperty().addListener(renderScaleListener);
+            setRenderScale(gamePane.renderScaleProperty().get());
+        } else {
+            gamePane.renderScaleProperty().removeListener(renderScaleListener);
+        }
+    }
+
+    /**
+     * Size the canvases for a number of device pixels per unit of the board's size. Each cell is made a whole number
+     * of pixels, so every cell is drawn the same and the sprites are copied close to 1:1. Rounding the cells means the
+     * counter-scale is not exactly the inverse of the render scale, so a little resampling is left. Nothing is
+     * reallocated or repainted if the size is the same as before.
+     * @param scale device pixels per unit
+     */
+    public void setRenderScale(double scale) {
+        double pixelWidth = Math.max(1, Math.round(width / cols * scale)) * cols;
+        double pixelHeight = Math.max(1, Math.round(height / rows * scale)) * rows;
+        if(pixelWidth == content.getWidth() && pixelHeight == content.getHeight()) {
+            return;
+        }
+        logger.info("Resizing canvas grid to {} x {} pixels", pixelWidth, pixelHeight);
+        content.setWidth(pixelWidth);
+        content.setHeight(pixelHeight);
+        overlay.setWidth(pixelWidth);
+        overlay.setHeight(pixelHeight);
+        contentScale.setX(width / pixelWidth);
+        contentScale.setY(height / pixelHeight);
+        overlayScale.setX(width / pixelWidth);
+        overlayScale.setY(height / pixelHeight);
+        paintAll();
+        overlay.repaintAll();
+    }
+
+    /**
+     * Set the listener to handle an event when a cell is clicked
+     * @param listener listener to add
+     */
+    public void setOnBlockClick(CellClickedListener listener) {
+        this.cellClickedListener = listener;
+    }
+
+    /**
+     * Set the listener to handle an event when a cell is right clicked
+     * @param listener listener to add
+     */
+    public void setOnRightClicked(CellClickedListener listener) {
+        this.rightClickedListener = listener;
+    }
+
+    /**
+     * Move the keyboard cursor to a cell, redrawing only the overlay
+     * @param x column
+     * @param y row
+     */
+    public void setCursor(int x, int y) {
+        cursorX = x;
+        cursorY = y;
+        overlay.setCursor(x, y);
+        refreshGhost();
+    }
+
+    /**
+     * Show a ghost of the current piece under the mouse, or under the keyboard cursor when the mouse is off the board,
+     * tinted by whether it can be placed there
+     * @param placements where the current piece can be placed, or null to show no ghost
+     */
+    public void setPlacements(PlacementMap placements) {
+        this.placements = placements;
+        refreshGhost();
+    }
+
+    /**
+     * Update the ghost piece on the next frame, after the piece has changed or been rotated
+     */
+    public void refreshGhost() {
+        ghostStale = true;
+        startPainting();
+    }
+
+    /**
+     * Triggers the Fade Out Animation for each cell from a given Set of GameBlockCoordinates
+     * @param gameBlockCoordinates Set of GameBlockCoordinates that will be animated
+     */
+    public void fadeOut(Set<GameBlockCoordinate> gameBlockCoordinates) {
+        for(GameBlockCoordinate coordinate : gameBlockCoordinates) {
+            effects.start(index(coordinate.getX(), coordinate.getY()), 1, FADE_STEP);
+        }
+    }
+
+    /**
+     * Returns grid of this board
+     * @return grid
+     */
+    public Grid getGrid() {
+        return grid;
+    }
+
+    /**
+     * Find which cell a mouse event is over and call the matching listener
+     * @param event mouse event
+     */
+    private void mouseClicked(MouseEvent event) {
+        int x = columnAt(event.getX());
+        int y = rowAt(event.getY());
+        if(x < 0 || y < 0) {
+            return;
+        }
+        if(event.getButton() == MouseButton.PRIMARY) {
+            logger.info("Cell clicked: {},{}", x, y);
+            if(cellClickedListener != null) {
+                cellClickedListener.cellClicked(x, y);
+            }
+        } else {
+            logger.info("Cell right clicked: {},{}", x, y);
+            if(rightClickedListener != null) {
+                rightClickedListener.cellClicked(x, y);
+            }
+        }
+    }
+
+    /**
+     * Move the hover highlight to the cell under the mouse
+     * @param event mouse event
+     */
+    private void mouseMoved(MouseEvent event) {
+        setHover(columnAt(event.getX()), rowAt(event.getY()));
+    }
+
+    /**
+     * Move the hover highlight, updating the ghost piece if it changed cell
+     * @param x column, or -1 to remove it
+     * @param y row, or -1 to remove it
+     */
+    private void setHover(int x, int y) {
+        if(x < 0 || y < 0) {
+            x = -1;
+            y = -1;
+        }
+        if(x == hoverX && y == hoverY) {
+            return;
+        }
+        hoverX = x;
+        hoverY = y;
+        overlay.setHover(x, y);
+        refreshGhost();
+    }
+
+    /**
+     * Move the ghost piece to the cell under the mouse or cursor, looking up whether it can be placed there
+     */
+    private void updateGhost() {
+        ghostStale = false;
+        int x = hoverX >= 0 ? hoverX : cursorX;
+        int y = hoverX >= 0 ? hoverY : cursorY;
+        if(placements == null || placements.getPiece() == null || x < 0 || y < 0) {
+            overlay.clearGhost();
+            return;
+        }
+        overlay.setGhost(placements.getPiece().getBlocks(), x, y, placements.canPlay(x, y));
+    }
+
+    /**
+     * Called when a cell of the grid changes value. A filled cell stops fading.
+     * @param x column
+     * @param y row
+     */
+    private void cellChanged(int x, int y) {
+        if(grid.get(x, y) != 0) {
+            effects.cancel(index(x, y));
+        }
+        overlay.cellChanged(x, y);
+        ghostStale = placements != null;
+        markDirty(x, y);
+    }
+
+    /**
+     * Mark a cell to be repainted on the next frame
+     * @param x column
+     * @param y row
+     */
+    private void markDirty(int x, int y) {
+        dirty.set(index(x, y));
+        startPainting();
+    }
+
+    /**
+     * Start the painter if it isn't already running
+     */
+    private void startPainting() {
+        if(!painting) {
+            painting = true;
+            painter.start();
+        }
+    }
+
+    /**
+     * Called by the EffectScheduler each frame a cell is fading, so the cell is repainted
+     * @param cell index of the cell
+     * @param opacity opacity of the fade
+     */
+    private void fadeStep(int cell, double opacity) {
+        dirty.set(cell);
+        startPainting();
+    }
+
+    /**
+     * Repaint the dirty cells and the ghost piece if needed, then stop the painter until something else changes
+     */
+    private void paintFrame() {
+        if(ghostStale) {
+            updateGhost();
+        }
+        var gc = content.getGraphicsContext2D();
+        for(int cell = dirty.nextSetBit(0); cell >= 0; cell = dirty.nextSetBit(cell + 1)) {
+            paintCell(gc, cell / rows, cell % rows);
+        }
+        dirty.clear();
+        painting = false;
+        painter.stop();
+    }
+
+    /**
+     * Paint every cell, used when the board is first shown or resized
+     */
+    public void paintAll() {
+        sprites = BlockSprites.forSize(cellWidth(), cellHeight());
+        var gc = content.getGraphicsContext2D();
+        gc.clearRect(0, 0, content.getWidth(), content.getHeight());
+        for(var x = 0; x < cols; x++) {
+            for(var y = 0; y < rows; y++) {
+                paintCell(gc, x, y);
+            }
+        }
+        dirty.clear();
+    }
+
+    /**
+     * Paint a single cell from the grid using its sprite, with any fade on top
+     * @param gc graphics context of this canvas
+     * @param x column
+     * @param y row
+     */
+    protected void paintCell(GraphicsContext gc, int x, int y) {
+        double width = cellWidth();
+        double height = cellHeight();
+        double left = x * width;
+        double top = y * height;
+        int value = grid.get(x, y);
+
+        PerformanceCounters.paint();
+        gc.clearRect(left, top, width, height);
+        sprites.draw(gc, value, BlockSprites.PLAIN, left, top, width, height);
+
+        double opacity = effects.valueOf(index(x, y));
+        if(opacity > 0) {
+            gc.setFill(Color.WHITE.deriveColor(0, 0, 1, opacity));
+            gc.fillRect(left, top, width, height);
+        }
+    }
+
+    /**
+     * Get the column at an x position on the board
+     * @param x position on the board, before any render scaling
+     * @return column, or -1 if outside the board
+     */
+    private int columnAt(double x) {
+        int column = (int) Math.floor(x / (width / cols));
+        return column >= 0 && column < cols ? column : -1;
+    }
+
+    /**
+     * Get the row at a y position on the board
+     * @param y position on the board, before any render scaling
+     * @return row, or -1 if outside the board
+     */
+    private int rowAt(double y) {
+        int row = (int) Math.floor(y / (height / rows));
+        return row >= 0 && row < rows ? row : -1;
+    }
+
+    /**
+     * Get the width of each cell on the content canvas
+     * @return width in canvas pixels
+     */
+    private double cellWidth() {
+        return content.getWidth() / cols;
+    }
+
+    /**
+     * Get the height of each cell on the content canvas
+     * @return height in canvas pixels
+     */
+    private double cellHeight() {
+        return content.getHeight() / rows;
+    }
+
+    /**
+     * Get the position of a cell in the dirty set, also used as the target of its effects
+     * @param x column
+     * @param y row
+     * @return cell index
+     */
+    private int index(int x, int y) {
+        return x * rows + y;
+    }
+}
@@ -0,0 +1,105 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.function.Consumer;
+
+/**
+ * The ChannelList shows the channels available on the server.
+ *
+ * Each CHANNELS reply is compared against the channels already shown. Only channels which have appeared get a new
+ * Text node, and only channels which have gone are removed; channels present in both keep their node, handlers and
+ * hover state.
+ */
+public class ChannelList extends VBox {
+
+    /**
+     * The node shown for each channel, in the order they were added
+     */
+    private final LinkedHashMap<String, Text> channels = new LinkedHashMap<>();
+
+    /**
+     * Called with the name of a channel when it is clicked
+     */
+    private final Consumer<String> onJoin;
+
+    /**
+     * Create a new, empty channel list
+     * @param onJoin called with the name of a channel when it is clicked
+     */
+    public ChannelList(Consumer<String> onJoin) {
+        this.onJoin = onJoin;
+    }
+
+    /**
+     * Update the list from the body of a CHANNELS message, one channel per line
+     * @param list the channels available
+     * @return true if any channel was added or removed
+     */
+    public boolean update(String list) {
+        var current = new LinkedHashSet<String>();
+        for(String channel : list.split("\n")) {
+            if(!channel.isBlank()) {
+                current.add(channel);
+            }
+        }
+
+        boolean changed = false;
+
+        //Remove channels which have closed
+        var iterator = channels.entrySet().iterator();
+        while(iterator.hasNext()) {
+            var entry = iterator.next();
+            if(!current.contains(entry.getKey())) {
+                getChildren().remove(entry.getValue());
+                iterator.remove();
+                changed = true;
+            }
+        }
+
+        //Add channels which have opened
+        for(String channel : current) {
+            if(!channels.containsKey(channel)) {
+                Text text = createChannel(channel);
+                channels.put(channel, text);
+                getChildren().add(text);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Get the number of channels shown
+     * @return number of channels
+     */
+    public int size() {
+        return channels.size();
+    }
+
+    /**
+     * Create the node for a channel
+     * @param channel name of the channel
+     * @return the styled Text
+     */
+    protected Text createChannel(String channel) {
+        Text text = new Text(channel);
+
+        //allows for user to join the clicked channel
+        text.setOnMouseClicked(mouseEvent -> onJoin.accept(channel));
+
+        //Styles the channels text
+        text.hoverProperty().addListener((ov, oldValue, newValue) -> {
+            if (newValue) {
+                text.setStyle("-fx-text-fill: yellow");
+            } else {
+                text.setStyle("-fx-text-fill: white");
+            }
+        });
+        text.getStyleClass().add("channelItem");
+        return text;
+    }
+}
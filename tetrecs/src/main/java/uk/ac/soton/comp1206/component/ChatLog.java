@@ -0,0 +1,192 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.geometry.Orientation;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Priority;
+import javafx.scene.shape.Rectangle;
+import javafx.scene.text.Text;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A ChatLog shows chat messages, keeping a fixed number of the most recent messages in a ring buffer.
+ *
+ * Only the lines which fit in the view exist as Text nodes. Scrolling, or a new message arriving, changes which
+ * messages those nodes show rather than adding nodes, so memory and layout cost stay the same however long the chat
+ * goes on. The view follows new messages unless the user has scrolled up.
+ */
+public class ChatLog extends HBox {
+
+    /**
+     * Default number of messages kept, can be changed with -Dtetrecs.chat.history
+     */
+    public static final int DEFAULT_HISTORY = Integer.getInteger("tetrecs.chat.history", 500);
+
+    /**
+     * Height of each line in pixels
+     */
+    private static final double LINE_HEIGHT = 16;
+
+    /**
+     * Ring buffer of messages, the oldest at head
+     */
+    private final String[] messages;
+
+    /**
+     * Position of the oldest message in the ring buffer
+     */
+    private int head = 0;
+
+    /**
+     * Number of messages in the ring buffer
+     */
+    private int size = 0;
+
+    /**
+     * Index (from the oldest message) of the message shown on the first line
+     */
+    private int firstShown = 0;
+
+    /**
+     * Shows the visible lines
+     */
+    private final Pane viewport = new Pane();
+
+    /**
+     * Text nodes for each visible line, reused as the log scrolls
+     */
+    private final ArrayList<Text> lines = new ArrayList<>();
+
+    /**
+     * Scrolls back through older messages
+     */
+    private final ScrollBar scrollBar = new ScrollBar();
+
+    /**
+     * Guards against the scroll bar listener reacting to changes made by refresh
+     */
+    private boolean updating = false;
+
+    /**
+     * Create a new chat log keeping the default number of messages
+     */
+    public ChatLog() {
+        this(DEFAULT_HISTORY);
+    }
+
+    /**
+     * Create a new chat log
+     * @param history number of messages to keep
+     */
+    public ChatLog(int history) {
+        messages = new String[Math.max(1, history)];
+
+        viewport.getStyleClass().add("messages");
+        HBox.setHgrow(viewport, Priority.ALWAYS);
+        var clip = new Rectangle();
+        clip.widthProperty().bind(viewport.widthProperty());
+        clip.heightProperty().bind(viewport.heightProperty());
+        viewport.setClip(clip);
+        viewport.heightProperty().addListener((observable, oldValue, newValue) -> refresh());
+
+        scrollBar.setOrientation(Orientation.VERTICAL);
+        scrollBar.setUnitIncrement(1);
+        scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if(!updating) {
+                firstShown = (int) Math.round(newValue.doubleValue());
+                refresh();
+            }
+        });
+        viewport.setOnScroll(e -> scrollBar.setValue(Math.max(scrollBar.getMin(),
+                Math.min(scrollBar.getMax(), scrollBar.getValue() - Math.signum(e.getDeltaY()) * 3))));
+
+        getChildren().addAll(viewport, scrollBar);
+    }
+
+    /**
+     * Add a message to the log, dropping the oldest if the log is full
+     * @param message the message
+     */
+    public void addMessage(String message) {
+        boolean following = firstShown >= maxFirstShown();
+        if(size < messages.length) {
+            messages[(head + size) % messages.length] = message;
+            size++;
+        } else {
+            messages[head] = message;
+            head = (head + 1) % messages.length;
+            if(!following && firstShown > 0) {
+                firstShown--; //Keep the same messages in view as the oldest is dropped
+            }
+        }
+        if(following) {
+            firstShown = maxFirstShown();
+        }
+        refresh();
+    }
+
+    /**
+     * Remove every message
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        firstShown = 0;
+        Arrays.fill(messages, null);
+        refresh();
+    }
+
+    /**
+     * Get the number of messages in the log
+     * @return number of messages
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the number of lines which fit in the view
+     * @return visible lines
+     */
+    private int visibleLines() {
+        return Math.max(1, (int) (viewport.getHeight() / LINE_HEIGHT));
+    }
+
+    /**
+     * Get the first message index which still fills the view
+     * @return largest value of firstShown
+     */
+    private int maxFirstShown() {
+        return Math.max(0, size - visibleLines());
+    }
+
+    /**
+     * Update the visible lines and scroll bar to show the messages from firstShown onwards
+     */
+    private void refresh() {
+        int visible = visibleLines();
+        while(lines.size() < visible) {
+            Text line = new Text();
+            line.getStyleClass().add("messages Text");
+            line.setLayoutY((lines.size() + 1) * LINE_HEIGHT - 4);
+            lines.add(line);
+            viewport.getChildren().add(line);
+        }
+        firstShown = Math.min(firstShown, maxFirstShown());
+        for(int i = 0; i < lines.size(); i++) {
+            int index = firstShown + i;
+            lines.get(i).setText(i < visible && index < size ? messages[(head + index) % messages.length] : "");
+        }
+
+        updating = true;
+        scrollBar.setMax(maxFirstShown());
+        scrollBar.setVisibleAmount(Math.min(visible, size));
+        scrollBar.setBlockIncrement(visible);
+        scrollBar.setValue(firstShown);
+        scrollBar.setVisible(maxFirstShown() > 0);
+        updating = false;
+    }
+}
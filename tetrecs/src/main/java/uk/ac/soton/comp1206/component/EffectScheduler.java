@@ -0,0 +1,166 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import uk.ac.soton.comp1206.event.EffectListener;
+
+import java.util.Arrays;
+
+/**
+ * The EffectScheduler drives every running effect on a board from a single pulse callback.
+ *
+ * Each effect is a target (usually a cell index), a value and how much the value drops each frame. The active effects
+ * are kept in parallel arrays, and a finished effect is swapped with the last one, so a frame only touches the effects
+ * which are running. The timer only runs while there is an active effect. The listener is told the new value of each
+ * effect every frame, and is told 0 on an effect's final frame so it can restore the target.
+ */
+public class EffectScheduler {
+
+    /**
+     * Draws each effect
+     */
+    private final EffectListener listener;
+
+    /**
+     * Target of each active effect
+     */
+    private int[] targets = new int[8];
+
+    /**
+     * Current value of each active effect
+     */
+    private double[] values = new double[8];
+
+    /**
+     * How much each active effect drops per frame
+     */
+    private double[] steps = new double[8];
+
+    /**
+     * Number of active effects
+     */
+    private int size = 0;
+
+    /**
+     * Steps the effects once per frame
+     */
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            pulse();
+        }
+    };
+
+    /**
+     * Whether the timer is running
+     */
+    private boolean running = false;
+
+    /**
+     * Create a scheduler which draws its effects with the given listener
+     * @param listener draws each effect
+     */
+    public EffectScheduler(EffectListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Start an effect, restarting it if the target already has one
+     * @param target what the effect is applied to
+     * @param from starting value
+     * @param step how much the value drops each frame
+     */
+    public void start(int target, double from, double step) {
+        int effect = find(target);
+        if(effect < 0) {
+            if(size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+                steps = Arrays.copyOf(steps, size * 2);
+            }
+            effect = size++;
+            targets[effect] = target;
+        }
+        values[effect] = from;
+        steps[effect] = step;
+        listener.effectStep(target, from);
+        if(!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    /**
+     * Stop the effect on a target without drawing its final frame
+     * @param target what the effect is applied to
+     */
+    public void cancel(int target) {
+        int effect = find(target);
+        if(effect >= 0) {
+            remove(effect);
+        }
+    }
+
+    /**
+     * Get the current value of the effect on a target
+     * @param target what the effect is applied to
+     * @return the value, or 0 if the target has no effect
+     */
+    public double valueOf(int target) {
+        int effect = find(target);
+        return effect < 0 ? 0 : values[effect];
+    }
+
+    /**
+     * Get the number of active effects
+     * @return number of effects
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Step every active effect once, removing those which have finished
+     */
+    private void pulse() {
+        for(int effect = size - 1; effect >= 0; effect--) {
+            int target = targets[effect];
+            double value = values[effect] - steps[effect];
+            if(value <= 0) {
+                remove(effect);
+                listener.effectStep(target, 0);
+            } else {
+                values[effect] = value;
+                listener.effectStep(target, value);
+            }
+        }
+        if(size == 0) {
+            running = false;
+            timer.stop();
+        }
+    }
+
+    /**
+     * Find the active effect on a target
+     * @param target what the effect is applied to
+     * @return position of the effect, or -1 if there is none
+     */
+    private int find(int target) {
+        for(int effect = 0; effect < size; effect++) {
+            if(targets[effect] == target) {
+                return effect;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Remove an effect by moving the last effect into its place
+     * @param effect position of the effect
+     */
+    private void remove(int effect) {
+        size--;
+        targets[effect] = targets[size];
+        values[effect] = values[size];
+        steps[effect] = steps[size];
+    }
+}
@@ -1,14 +1,13 @@
 package uk.ac.soton.comp1206.component;
 
-import javafx.animation.AnimationTimer;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.scene.canvas.Canvas;
-import javafx.scene.paint.*;
+import javafx.scene.paint.Color;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
 
 /**
  * The Visual User Interface component representing a single block in the grid.
@@ -23,8 +22,6 @@ public class GameBlock extends Canvas {
 
     private static final Logger logger = LogManager.getLogger(GameBlock.class);
 
-    private AnimationTimer animationTimer;
-
     /**
      * The set of colours for different pieces
      */
@@ -52,6 +49,11 @@ public class GameBlock extends Canvas {
     private final double width;
     private final double height;
 
+    /**
+     * Pre-rendered sprites for the size of this block
+     */
+    private final BlockSprites sprites;
+
     /**
      * The column this block exists as in the grid
      */
@@ -67,8 +69,6 @@ public class GameBlock extends Canvas {
      */
     private final IntegerProperty value = new SimpleIntegerProperty(0);
 
-    private Boolean centre = false;
-
     /**
      * Create a new single Game Block
      * @param gameBoard the board this block belongs to
@@ -88,19 +88,13 @@ public class GameBlock extends Canvas {
         setWidth(width);
         setHeight(height);
 
+        sprites = BlockSprites.forSize(width, height);
+
         //Do an initial paint
         paint();
 
         //When the value property is updated, call the internal updateValue method
         value.addListener(this::updateValue);
-
-        this.hoverProperty().addListener((ChangeListener<Boolean>) (observable, oldValue, newValue) -> {
-            if (newValue) {
-                paintCursor();
-            } else {
-                paint();
-            }
-        });
     }
 
     /**
@@ -114,63 +108,22 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Handle painting of the block canvas
+     * Handle painting of the block canvas, drawing its sprite from the atlas
      */
     public void paint() {
-        //If the block is empty, paint as empty
-        if(value.get() == 0) {
-            paintEmpty();
-        } else {
-            //If the block is not empty, paint with the colour represented by the value
-            paintColor(COLOURS[value.get()]);
-        }
-        if(centre) {
-            //paints centre dot
-            var gc = getGraphicsContext2D();
-            gc.setStroke(Color.GREY);
-            gc.fillOval(width/4, height/4, width/2, height/2);
-        }
-    }
-
-    /**
-     * Paint this canvas empty
-     */
-    private void paintEmpty() {
+        PerformanceCounters.paint();
         var gc = getGraphicsContext2D();
-
-        //Clear
         gc.clearRect(0,0,width,height);
-
-        //Fill
-        gc.setFill(Color.web("BLACK", 0.5));
-        gc.fillRect(0,0, width, height);
-
-        //Border
-        gc.setStroke(Color.GREY);
-        gc.strokeRect(0,0,width,height);
+        sprites.draw(gc, value.get(), BlockSprites.PLAIN, 0, 0, width, height);
     }
 
     /**
-     * Paint this canvas with the given colour
-     * @param colour the colour to paint
+     * Paint this canvas empty
      */
-    private void paintColor(Paint colour) {
+    private void paintEmpty() {
         var gc = getGraphicsContext2D();
-
-        //Clear
         gc.clearRect(0,0,width,height);
-
-        //Colour fill
-        gc.setFill(colour);
-        gc.fillRect(0,0, width, height);
-
-        //Triangle Fill
-        gc.setFill(Color.color(1,1, 1, 0.35));
-        gc.fillPolygon(new double[]{0.0, 0.0, width}, new double[]{0, height, height}, 3);
-
-        //Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
+        sprites.draw(gc, 0, BlockSprites.PLAIN, 0, 0, width, height);
     }
 
     /**
@@ -206,67 +159,17 @@ public class GameBlock extends Canvas {
     }
 
     /**
-     * Paints the given GameBlock white, indicating where the centre of the GamePiece will be placed
+     * Paints one frame of the fade when a user clears a line, called by the board's EffectScheduler
+     * @param opacity opacity of the white fade, 0 to paint the block normally again
      */
-    public void paintCursor() {
-        var gc = getGraphicsContext2D();
-        //Border
-        gc.setStroke(Color.WHITE);
-        gc.strokeRect(0,0,width,height);
-        if(value.get() == 0) {
-            gc.setFill(Color.WHITE.deriveColor(0,0,1,0.7));
-            gc.fillRect(0,0, width, height);
+    public void paintFade(double opacity) {
+        if(opacity <= 0) {
+            paint();
+            return;
         }
-    }
-
-    /**
-     * Resets the GameBlock paint, removing the cursor
-     */
-    public void resetCursor() {
+        paintEmpty();
         var gc = getGraphicsContext2D();
-        //Resets Border
-        gc.setStroke(Color.BLACK);
-        gc.strokeRect(0,0,width,height);
-        if(value.get() == 0) {
-            paintEmpty();
-        }
-    }
-
-    /**
-     * Value assigned to GameBlocks, so that current and following piece preview have the centre circle painted
-     */
-    public void centre() {
-        centre = true;
-    }
-
-    /**
-     * Starts the fade timer for the GameBlock when a user clears a line
-     */
-    public void fadeOut() {
-        animationTimer = new myAnimationTimer();
-        animationTimer.start();
-    }
-
-    /**
-     * Animation Timer Class, easier to have within the same GameBlock file.
-     * Contains the actual logic of the animation
-     */
-    private class myAnimationTimer extends AnimationTimer {
-        double opacityFadeOut = 1;
-
-        @Override
-        public void handle(long l) {
-            {
-                paintEmpty();
-                var gc = getGraphicsContext2D();
-                opacityFadeOut -= 0.05;
-                if (opacityFadeOut <= 0.0) {
-                    stop();
-                    animationTimer = null;
-                    logger.info("Animation Stopped");
-                }
-                gc.setFill(Color.WHITE.deriveColor(0,0,1,opacityFadeOut));
-                gc.fillRect(0,0,width,height);            }
-        }
+        gc.setFill(Color.WHITE.deriveColor(0,0,1,opacity));
+        gc.fillRect(0,0,width,height);
     }
 }
@@ -56,6 +56,11 @@ public class GameBoard extends GridPane {
      */
     GameBlock[][] blocks;
 
+    /**
+     * Holds the hover highlight and centre dot above the blocks
+     */
+    protected BoardOverlay overlay;
+
     /**
      * The listener to call when a specific block is clicked
      */
@@ -63,6 +68,16 @@ public class GameBoard extends GridPane {
 
     private RightClickedListener rightClickedListener;
 
+    /**
+     * How much a fading block's opacity drops each frame
+     */
+    private static final double FADE_STEP = 0.05;
+
+    /**
+     * Drives the fades of every block on this board from one timer
+     */
+    protected final EffectScheduler effects = new EffectScheduler(this::paintFade);
+
 
     /**
      * Create a new GameBoard, based off a given grid, with a visual width and height.
@@ -123,12 +138,16 @@ public class GameBoard extends GridPane {
         setGridLinesVisible(true);
 
         blocks = new GameBlock[cols][rows];
+        overlay = new BoardOverlay(grid, width, height);
 
         for(var y = 0; y < rows; y++) {
             for (var x = 0; x < cols; x++) {
                 createBlock(x,y);
             }
         }
+
+        //The overlay spans every cell and is added last, so it is drawn above the blocks
+        add(overlay, 0, 0, cols, rows);
     }
 
     /**
@@ -151,6 +170,16 @@ public class GameBoard extends GridPane {
 
         //Link the GameBlock component to the corresponding value in the Grid
         block.bind(grid.getGridProperty(x,y));
+        grid.getGridProperty(x,y).addListener((observable, oldValue, newValue) -> overlay.cellChanged(x, y));
+
+        //Move the hover highlight on the overlay, leaving the block itself untouched
+        block.hoverProperty().addListener((observable, oldValue, hovered) -> {
+            if(hovered) {
+                overlay.setHover(x, y);
+            } else {
+                overlay.removeHover(x, y);
+            }
+        });
 
         //Add a mouse click handler to the block to trigger GameBoard blockClicked method and rightClicked method
         block.setOnMouseClicked((e) -> {
@@ -208,19 +237,21 @@ public class GameBoard extends GridPane {
 
     /**
      * Displays a given GamePiece in the centre of a 3x3 GameBoard.
-     * Used for previewing current and following GamePieces
+     * Used for previewing current and following GamePieces. The board is left empty if there is no piece yet.
      * @param gamePiece GamePiece to be displayed
      */
     public void pieceToDisplay(GamePiece gamePiece) {
         this.grid.clearGrid();
-        this.grid.playPiece(gamePiece, 1,1);
+        if(gamePiece != null) {
+            this.grid.playPiece(gamePiece, 1,1);
+        }
     }
 
     /**
-     * Sets the centre block of a 3x3 GameBoard to have an indicator painted
+     * Sets the centre block of a 3x3 GameBoard to have an indicator painted on the overlay
      */
     public void paintCentre() {
-        this.getBlock(1,1).centre();
+        overlay.setCentre(1,1);
     }
 
     /**
@@ -229,10 +260,19 @@ public class GameBoard extends GridPane {
      */
     public void fadeOut(Set<GameBlockCoordinate> gameBlockCoordinates) {
         for (GameBlockCoordinate gameBlockCoordinate: gameBlockCoordinates){
-            blocks[gameBlockCoordinate.getX()][gameBlockCoordinate.getY()].fadeOut();
+            effects.start(gameBlockCoordinate.getX() * rows + gameBlockCoordinate.getY(), 1, FADE_STEP);
         }
     }
 
+    /**
+     * Paints one frame of a block's fade
+     * @param block index of the block, x * rows + y
+     * @param opacity opacity of the fade
+     */
+    private void paintFade(int block, double opacity) {
+        blocks[block / rows][block % rows].paintFade(opacity);
+    }
+
     /**
      * Returns grid of given GameBoard
      * @return grid
@@ -0,0 +1,245 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import uk.ac.soton.comp1206.game.OpponentBoards;
+
+/**
+ * The OpponentBoardCanvas draws the boards of every opponent onto a single shared Canvas.
+ *
+ * Boards are laid out as tiles in rows, each with the player's name above it. The tile size is the largest that fits
+ * every player onto the canvas, down to a minimum size. If the boards still don't fit, the canvas acts as a viewport
+ * onto the full grid of tiles, and only the tiles currently scrolled into view are painted. Off-screen boards are
+ * kept only in the OpponentBoards model.
+ *
+ * After a full paint, only the visible cells marked dirty in the model are repainted.
+ */
+public class OpponentBoardCanvas extends Canvas {
+
+    /**
+     * Largest board size in pixels
+     */
+    private static final double MAX_TILE = 75;
+
+    /**
+     * Height of the name above each board
+     */
+    private static final double LABEL = 16;
+
+    /**
+     * Space between tiles
+     */
+    private static final double GAP = 6;
+
+    /**
+     * The boards being drawn
+     */
+    protected final OpponentBoards boards;
+
+    /**
+     * Smallest board size in pixels, below which the canvas scrolls instead
+     */
+    protected final double minTile;
+
+    /**
+     * Size of each board in pixels
+     */
+    protected double tile;
+
+    /**
+     * Number of tiles in each row
+     */
+    protected int columns = 1;
+
+    /**
+     * How far the view is scrolled down, in pixels
+     */
+    protected double scroll = 0;
+
+    /**
+     * Font used for player names
+     */
+    private final Font font = Font.font("Orbitron", 11);
+
+    /**
+     * Create a new canvas for the given boards
+     * @param boards the boards to draw
+     * @param width width of the canvas
+     * @param height height of the canvas
+     * @param minTile smallest board size in pixels before the canvas scrolls
+     */
+    public OpponentBoardCanvas(OpponentBoards boards, double width, double height, double minTile) {
+        super(width, height);
+        this.boards = boards;
+        this.minTile = minTile;
+        paintAll();
+    }
+
+    /**
+     * Work out the largest tile size which fits every board on the canvas, or the smallest size if none fit
+     */
+    protected void layoutTiles() {
+        int count = Math.max(1, boards.size());
+        for(tile = MAX_TILE; tile > minTile; tile -= 1) {
+            columns = Math.max(1, (int) ((getWidth() + GAP) / (tile + GAP)));
+            if(rowsFor(count) * rowHeight() - GAP <= getHeight()) {
+                return;
+            }
+        }
+        tile = minTile;
+        columns = Math.max(1, (int) ((getWidth() + GAP) / (tile + GAP)));
+    }
+
+    /**
+     * Get the height of the whole grid of tiles, which may be taller than the canvas
+     * @return content height in pixels
+     */
+    public double getContentHeight() {
+        return rowsFor(boards.size()) * rowHeight() - GAP;
+    }
+
+    /**
+     * Scroll the view, repainting the tiles which are now visible
+     * @param scroll pixels to scroll down from the top
+     */
+    public void setScroll(double scroll) {
+        double max = Math.max(0, getContentHeight() - getHeight());
+        this.scroll = Math.max(0, Math.min(max, scroll));
+        paintVisible();
+    }
+
+    /**
+     * Get how far the view is scrolled down
+     * @return scroll in pixels
+     */
+    public double getScroll() {
+        return scroll;
+    }
+
+    /**
+     * Lay out and paint every visible board, used when players are added or the canvas changes size
+     */
+    public void paintAll() {
+        layoutTiles();
+        setScroll(scroll);
+    }
+
+    /**
+     * Paint every visible board from the model
+     */
+    protected void paintVisible() {
+        var gc = getGraphicsContext2D();
+        gc.clearRect(0, 0, getWidth(), getHeight());
+        gc.setFont(font);
+        gc.setTextBaseline(VPos.TOP);
+        int last = lastVisible();
+        for(int board = firstVisible(); board <= last; board++) {
+            gc.setFill(Color.WHITE);
+            gc.fillText(boards.getPlayer(board), tileX(board), tileY(board) - LABEL, tile + GAP);
+            for(int x = 0; x < boards.getCols(); x++) {
+                for(int y = 0; y < boards.getRows(); y++) {
+                    paintCell(gc, board, x, y);
+                }
+            }
+        }
+        boards.clearDirty();
+    }
+
+    /**
+     * Repaint only the visible cells which have changed since the last paint. Changes to off-screen boards are
+     * painted from the model when they are scrolled into view.
+     */
+    public void repaint() {
+        var gc = getGraphicsContext2D();
+        int cells = boards.getCells();
+        int rows = boards.getRows();
+        int end = (lastVisible() + 1) * cells;
+        for(int dirty = boards.nextDirty(firstVisible() * cells); dirty >= 0 && dirty < end;
+            dirty = boards.nextDirty(dirty + 1)) {
+            int board = dirty / cells;
+            int cell = dirty % cells;
+            paintCell(gc, board, cell / rows, cell % rows);
+        }
+        boards.clearDirty();
+    }
+
+    /**
+     * Paint a single cell of a board
+     * @param gc graphics context of this canvas
+     * @param board index of the board
+     * @param x column
+     * @param y row
+     */
+    protected void paintCell(GraphicsContext gc, int board, int x, int y) {
+        double size = tile / boards.getCols();
+        double left = tileX(board) + x * size;
+        double top = tileY(board) + y * size;
+        int value = boards.get(board, x, y);
+
+        gc.clearRect(left, top, size, size);
+        if(value <= 0 || value >= GameBlock.COLOURS.length) {
+            gc.setFill(Color.web("BLACK", 0.5));
+            gc.setStroke(Color.GREY);
+        } else {
+            gc.setFill(GameBlock.COLOURS[value]);
+            gc.setStroke(Color.BLACK);
+        }
+        gc.fillRect(left, top, size, size);
+        gc.strokeRect(left + 0.5, top + 0.5, size - 1, size - 1);
+    }
+
+    /**
+     * Get the index of the first board at least partly in view
+     * @return board index
+     */
+    protected int firstVisible() {
+        return (int) (scroll / rowHeight()) * columns;
+    }
+
+    /**
+     * Get the index of the last board at least partly in view
+     * @return board index, less than the first if there are none
+     */
+    protected int lastVisible() {
+        int lastRow = (int) ((scroll + getHeight()) / rowHeight());
+        return Math.min(boards.size(), (lastRow + 1) * columns) - 1;
+    }
+
+    /**
+     * Get the height of a row of tiles, including the name and gap
+     * @return row height in pixels
+     */
+    protected double rowHeight() {
+        return tile + LABEL + GAP;
+    }
+
+    /**
+     * Get the number of rows needed for a number of boards
+     * @param count number of boards
+     * @return number of rows
+     */
+    protected int rowsFor(int count) {
+        return (count + columns - 1) / columns;
+    }
+
+    /**
+     * Get the left edge of a board
+     * @param board index of the board
+     * @return x position in pixels
+     */
+    protected double tileX(int board) {
+        return (board % columns) * (tile + GAP);
+    }
+
+    /**
+     * Get the top edge of a board, below its name
+     * @param board index of the board
+     * @return y position in pixels
+     */
+    protected double tileY(int board) {
+        return (board / columns) * rowHeight() + LABEL - scroll;
+    }
+}
@@ -0,0 +1,69 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.geometry.Orientation;
+import javafx.scene.control.ScrollBar;
+import javafx.scene.layout.HBox;
+import uk.ac.soton.comp1206.game.OpponentBoards;
+
+/**
+ * The OpponentBoardWall is a scrollable, virtualised view of the boards of every opponent.
+ *
+ * It pairs a single OpponentBoardCanvas viewport with a scroll bar. However many players there are, the wall only uses
+ * these two nodes; boards which are scrolled out of view exist only as bytes in the OpponentBoards model.
+ */
+public class OpponentBoardWall extends HBox {
+
+    /**
+     * The viewport the visible boards are drawn onto
+     */
+    protected final OpponentBoardCanvas canvas;
+
+    /**
+     * Scrolls the viewport, shown only when the boards don't fit
+     */
+    protected final ScrollBar scrollBar = new ScrollBar();
+
+    /**
+     * Create a new wall for the given boards
+     * @param boards the boards to show
+     * @param width width of the wall
+     * @param height height of the wall
+     * @param minTile smallest board size in pixels before the wall scrolls
+     */
+    public OpponentBoardWall(OpponentBoards boards, double width, double height, double minTile) {
+        canvas = new OpponentBoardCanvas(boards, width - 12, height, minTile);
+
+        scrollBar.setOrientation(Orientation.VERTICAL);
+        scrollBar.setPrefHeight(height);
+        scrollBar.setPrefWidth(12);
+        scrollBar.valueProperty().addListener((observable, oldValue, newValue) -> canvas.setScroll(newValue.doubleValue()));
+
+        //Scroll with the mouse wheel too
+        canvas.setOnScroll(e -> scrollBar.setValue(Math.max(scrollBar.getMin(),
+                Math.min(scrollBar.getMax(), scrollBar.getValue() - e.getDeltaY()))));
+
+        getChildren().addAll(canvas, scrollBar);
+        setMaxSize(width, height);
+        refresh();
+    }
+
+    /**
+     * Lay out and repaint every visible board, for when players have been added
+     */
+    public void refresh() {
+        canvas.paintAll();
+        double overflow = Math.max(0, canvas.getContentHeight() - canvas.getHeight());
+        scrollBar.setMax(overflow);
+        scrollBar.setVisibleAmount(canvas.getHeight() * overflow / Math.max(1, canvas.getContentHeight()));
+        scrollBar.setUnitIncrement(20);
+        scrollBar.setBlockIncrement(canvas.getHeight());
+        scrollBar.setVisible(overflow > 0);
+    }
+
+    /**
+     * Repaint only the visible cells which have changed
+     */
+    public void repaint() {
+        canvas.repaint();
+    }
+}
@@ -0,0 +1,226 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.AnimationTimer;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.util.Arrays;
+
+/**
+ * The PerformanceHud shows what each frame is doing on top of a scene: frames per second, how long each pulse spends
+ * on animation and layout, how far each PerformanceCounter moved per frame, and heap used.
+ *
+ * Every scene has one, toggled with F3. Once shown it stays shown in the following scenes until toggled off. While
+ * hidden it has no timer or pulse listener, so it costs nothing.
+ */
+public class PerformanceHud extends VBox {
+
+    /**
+     * How often the figures are refreshed, in nanoseconds
+     */
+    private static final long REFRESH = 500_000_000L;
+
+    /**
+     * Names of the counters, in the order PerformanceCounters reads them
+     */
+    private static final String[] COUNTERS = {"paint", "grid", "runLater", "net in", "net out"};
+
+    /**
+     * Whether the HUD was last left showing, carried over to the next scene
+     */
+    private static boolean shown = false;
+
+    /**
+     * The scene this HUD is measuring
+     */
+    private final Scene scene;
+
+    /**
+     * The figures
+     */
+    private final Text summary = new Text();
+
+    /**
+     * Counter values at the start of the last frame
+     */
+    private final long[] previous = new long[COUNTERS.length];
+
+    /**
+     * Counter values at the start of this frame
+     */
+    private final long[] current = new long[COUNTERS.length];
+
+    /**
+     * How far each counter moved during this window
+     */
+    private final long[] totals = new long[COUNTERS.length];
+
+    /**
+     * Most each counter moved in a single frame during this window
+     */
+    private final long[] maxima = new long[COUNTERS.length];
+
+    /**
+     * Start of the current window and number of frames in it
+     */
+    private long windowStart;
+    private int frames;
+
+    /**
+     * When the current pulse started, or 0 once it has been measured
+     */
+    private long pulseStart;
+
+    /**
+     * Total and longest pulse during this window, in nanoseconds
+     */
+    private long pulseTotal;
+    private long pulseMax;
+
+    /**
+     * Marks the start of each pulse and counts the frame
+     */
+    private final AnimationTimer frameTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            frame(now);
+        }
+    };
+
+    /**
+     * Marks the end of each pulse's layout
+     */
+    private final Runnable pulseEnd = this::pulseEnd;
+
+    /**
+     * Create a HUD for a scene, showing it straight away if it was left showing
+     * @param scene the scene to measure
+     */
+    public PerformanceHud(Scene scene) {
+        this.scene = scene;
+
+        getStyleClass().add("telemetry");
+        summary.getStyleClass().add("telemetry");
+        getChildren().add(summary);
+
+        setMouseTransparent(true);
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        StackPane.setAlignment(this, Pos.TOP_LEFT);
+        setVisible(false);
+
+        //Stop measuring once the window moves on to another scene
+        scene.windowProperty().addListener((observable, oldWindow, window) -> {
+            if(window == null) {
+                stop();
+            }
+        });
+
+        if(shown) {
+            start();
+        }
+    }
+
+    /**
+     * Show or hide the HUD
+     */
+    public void toggle() {
+        shown = !isVisible();
+        if(shown) {
+            start();
+        } else {
+            stop();
+        }
+    }
+
+    /**
+     * Show the HUD and start measuring
+     */
+    private void start() {
+        PerformanceCounters.read(previous);
+        resetWindow(System.nanoTime());
+        summary.setText("Measuring...");
+        setVisible(true);
+        scene.addPostLayoutPulseListener(pulseEnd);
+        frameTimer.start();
+    }
+
+    /**
+     * Hide the HUD and stop measuring
+     */
+    private void stop() {
+        frameTimer.stop();
+        scene.removePostLayoutPulseListener(pulseEnd);
+        setVisible(false);
+    }
+
+    /**
+     * Called at the start of each pulse. Works out how far each counter moved since the last frame, and refreshes the
+     * figures at the end of each window.
+     * @param now time of the pulse
+     */
+    private void frame(long now) {
+        pulseStart = System.nanoTime();
+        PerformanceCounters.read(current);
+        for(int counter = 0; counter < COUNTERS.length; counter++) {
+            long moved = current[counter] - previous[counter];
+            totals[counter] += moved;
+            maxima[counter] = Math.max(maxima[counter], moved);
+            previous[counter] = current[counter];
+        }
+        frames++;
+        if(now - windowStart >= REFRESH) {
+            update(now);
+            resetWindow(now);
+        }
+    }
+
+    /**
+     * Called once layout has finished in each pulse, to measure how long the pulse took
+     */
+    private void pulseEnd() {
+        if(pulseStart == 0) {
+            return;
+        }
+        long duration = System.nanoTime() - pulseStart;
+        pulseTotal += duration;
+        pulseMax = Math.max(pulseMax, duration);
+        pulseStart = 0;
+    }
+
+    /**
+     * Refresh the figures from the window just finished
+     * @param now end of the window
+     */
+    private void update(long now) {
+        double seconds = (now - windowStart) / 1e9;
+        var text = new StringBuilder();
+        text.append(String.format("FPS %.1f   pulse %.2f ms avg, %.2f ms max%n",
+                frames / seconds, pulseTotal / 1e6 / frames, pulseMax / 1e6));
+        text.append(String.format("%-9s %7s %5s%n", "per frame", "avg", "max"));
+        for(int counter = 0; counter < COUNTERS.length; counter++) {
+            text.append(String.format("%-9s %7.1f %5d%n", COUNTERS[counter], (double) totals[counter] / frames,
+                    maxima[counter]));
+        }
+        var runtime = Runtime.getRuntime();
+        long used = runtime.totalMemory() - runtime.freeMemory();
+        text.append(String.format("heap %d / %d MB", used >> 20, runtime.maxMemory() >> 20));
+        summary.setText(text.toString());
+    }
+
+    /**
+     * Start a new window
+     * @param now start of the window
+     */
+    private void resetWindow(long now) {
+        windowStart = now;
+        frames = 0;
+        pulseTotal = 0;
+        pulseMax = 0;
+        Arrays.fill(totals, 0);
+        Arrays.fill(maxima, 0);
+    }
+}
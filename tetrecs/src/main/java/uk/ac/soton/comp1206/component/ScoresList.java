@@ -12,14 +12,33 @@ import javafx.util.Duration;
 import javafx.util.Pair;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 
 /**
  * A ScoresList will hold and display a list of names and associated scores.
  * It extends VBox to show a list of scores.
  * It is bound to an observable list property, which when it is updated, will update the localScores list property in
  * ScoresList, creating a leaderboard.
+ *
+ * Rows are keyed by player name (with a count for repeated names), so each update reuses and reorders the existing
+ * Text nodes in place. Only rows which are new or whose score changed are animated.
  */
 public class ScoresList extends VBox {
+
+    /**
+     * Number of scores shown
+     */
+    private static final int SHOWN = 10;
+
+    /**
+     * A displayed row and the animation used to reveal it
+     */
+    private static class Row {
+        private final Text text = new Text();
+        private FadeTransition fade;
+    }
+
     /**
      * All Scores of players
      */
@@ -28,7 +47,12 @@ public class ScoresList extends VBox {
     /**
      * All Scores of players within the same lobby
      */
-    protected ArrayList<String> multiplayerPlayers = new ArrayList<>();
+    protected HashSet<String> multiplayerPlayers = new HashSet<>();
+
+    /**
+     * Displayed rows, keyed by player name
+     */
+    private final HashMap<String, Row> rows = new HashMap<>();
 
     public ScoresList() {
         this.localScores.addListener(this::updateScores); //Listener detects when there is a change to the listProperty
@@ -47,40 +71,93 @@ public class ScoresList extends VBox {
     }
 
     /**
-     * renderScores will first clear the VBox, then iterate through the given List, creating a Text item that will
-     * display the name of the player and their score, then animating the text item.
+     * renderScores updates the VBox to show the top scores in the given List. Existing rows are found by key and
+     * reused, new rows are created, rows no longer shown are removed, and the rows are then put in order in place.
+     * New rows and rows whose score has changed are animated.
      * @param scores List of scores of all players
      */
     protected void renderScores(ObservableList<Pair<String, Integer>> scores) {
-        this.getChildren().clear();
-        int x = 1;
-        for(Pair pair: scores) {
-            Text scoreItem = new Text(pair.getKey() + " - " + pair.getValue());
-            if(multiplayerPlayers.contains(pair.getKey())) {
-                scoreItem.getStyleClass().add("scorelistStrike");
-            } else {
-                scoreItem.getStyleClass().add("scorelist");
-            }
-            this.getChildren().add(scoreItem);
-            this.reveal(scoreItem);
-            x++;
-            if(x==11){ //Only shows the top 10 scores
+        var wanted = new ArrayList<Text>(SHOWN);
+        var keys = new HashSet<String>();
+        var occurrences = new HashMap<String, Integer>();
+        for(Pair<String, Integer> pair: scores) {
+            if(wanted.size() == SHOWN){ //Only shows the top 10 scores
                 break;
             }
+            String name = String.valueOf(pair.getKey());
+            int occurrence = occurrences.merge(name, 1, Integer::sum);
+            String key = key(name, occurrence);
+            keys.add(key);
+
+            //Placeholder rows, shown while scores load, have no score
+            String label = pair.getValue() == null ? name : name + " - " + pair.getValue();
+            Row row = rows.get(key);
+            if(row == null) {
+                row = new Row();
+                rows.put(key, row);
+                row.text.setText(label);
+                this.reveal(row);
+            } else if(!row.text.getText().equals(label)) {
+                row.text.setText(label);
+                this.reveal(row);
+            }
+            style(row.text, multiplayerPlayers.contains(name));
+            wanted.add(row.text);
+        }
+
+        //Forget rows which are no longer shown
+        rows.keySet().removeIf(key -> !keys.contains(key));
+
+        //Reorder in place, only moving nodes which are out of position
+        var children = this.getChildren();
+        for(int i = 0; i < wanted.size(); i++) {
+            Text text = wanted.get(i);
+            if(i < children.size() && children.get(i) == text) {
+                continue;
+            }
+            children.remove(text);
+            children.add(i, text);
+        }
+        if(children.size() > wanted.size()) {
+            children.remove(wanted.size(), children.size());
         }
     }
 
     /**
-     * Animates the given Text item to fade in once, and then remain shown to the user
-     * @param item Text Node to be animated
+     * Get the key of a row
+     * @param name player name
+     * @param occurrence how many times the name has appeared so far, including this one
+     * @return the key
      */
-    protected void reveal(Text item) {
-        FadeTransition fadeTransition = new FadeTransition(Duration.seconds(1), item);
-        fadeTransition.setFromValue(0);
-        fadeTransition.setToValue(1);
-        fadeTransition.setCycleCount(1);
-        fadeTransition.setAutoReverse(false);
-        fadeTransition.play();
+    private static String key(String name, int occurrence) {
+        return occurrence == 1 ? name : name + "\n" + occurrence; //Names never contain new lines
+    }
+
+    /**
+     * Set the style of a row, depending on whether the player is out of the game
+     * @param text the row
+     * @param struck whether the row is struck through
+     */
+    private static void style(Text text, boolean struck) {
+        String style = struck ? "scorelistStrike" : "scorelist";
+        if(text.getStyleClass().size() != 1 || !text.getStyleClass().get(0).equals(style)) {
+            text.getStyleClass().setAll(style);
+        }
+    }
+
+    /**
+     * Animates the given row to fade in once, and then remain shown to the user
+     * @param row row to be animated
+     */
+    private void reveal(Row row) {
+        if(row.fade == null) {
+            row.fade = new FadeTransition(Duration.seconds(1), row.text);
+            row.fade.setFromValue(0);
+            row.fade.setToValue(1);
+            row.fade.setCycleCount(1);
+            row.fade.setAutoReverse(false);
+        }
+        row.fade.playFromStart();
     }
 
     /**
@@ -92,19 +169,15 @@ public class ScoresList extends VBox {
     }
 
     /**
-     * Takes the given string and searches for a pair that contains that string, then changes style class of the
-     * Text item to have a strikethrough.
+     * Marks the player with the given name as out of the game, changing the style class of their row to have a
+     * strikethrough.
      * @param item
      */
     public void strikeThrough(String item) {
-        int x = 0;
         this.multiplayerPlayers.add(item);
-        for (Pair pair: localScores) {
-            if(pair.getKey().equals(item)){
-                this.getChildren().get(x).getStyleClass().add("scorelistStrike");
-            } else {
-                x++;
-            }
+        Row row = rows.get(key(item, 1));
+        if(row != null) {
+            style(row.text, true);
         }
     }
 
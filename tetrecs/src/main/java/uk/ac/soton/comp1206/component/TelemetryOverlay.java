@@ -0,0 +1,82 @@
+package uk.ac.soton.comp1206.component;
+
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.geometry.Pos;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+import uk.ac.soton.comp1206.network.NetworkTelemetry;
+
+/**
+ * The TelemetryOverlay shows the NetworkTelemetry summary on top of a scene, to help diagnose lag.
+ *
+ * It is hidden by default and only refreshes while it is shown.
+ */
+public class TelemetryOverlay extends VBox {
+
+    /**
+     * The telemetry being shown
+     */
+    private final NetworkTelemetry telemetry;
+
+    /**
+     * The summary text
+     */
+    private final Text summary = new Text();
+
+    /**
+     * Refreshes the summary twice a second while shown
+     */
+    private final Timeline refresh;
+
+    /**
+     * Create a new overlay for the given telemetry
+     * @param telemetry the telemetry to show
+     */
+    public TelemetryOverlay(NetworkTelemetry telemetry) {
+        this.telemetry = telemetry;
+
+        getStyleClass().add("telemetry");
+        summary.getStyleClass().add("telemetry");
+        getChildren().add(summary);
+
+        setMouseTransparent(true);
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        StackPane.setAlignment(this, Pos.BOTTOM_LEFT);
+
+        refresh = new Timeline(new KeyFrame(Duration.millis(500), e -> update()));
+        refresh.setCycleCount(Animation.INDEFINITE);
+        setVisible(false);
+    }
+
+    /**
+     * Show or hide the overlay
+     */
+    public void toggle() {
+        if(isVisible()) {
+            hide();
+        } else {
+            update();
+            setVisible(true);
+            refresh.play();
+        }
+    }
+
+    /**
+     * Hide the overlay and stop refreshing
+     */
+    public void hide() {
+        setVisible(false);
+        refresh.stop();
+    }
+
+    /**
+     * Refresh the summary from the telemetry
+     */
+    private void update() {
+        summary.setText(telemetry.summary());
+    }
+}
@@ -0,0 +1,15 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The CellClickedListener is used to handle the event when a cell of a CanvasGameBoard is clicked. It passes the
+ * column and row of the cell, as a CanvasGameBoard has no GameBlock for each cell.
+ */
+public interface CellClickedListener {
+
+    /**
+     * Handle a cell clicked event
+     * @param x column of the cell
+     * @param y row of the cell
+     */
+    void cellClicked(int x, int y);
+}
@@ -0,0 +1,14 @@
+package uk.ac.soton.comp1206.event;
+
+/**
+ * The EffectListener is used by an EffectScheduler to draw each active effect once per frame
+ */
+public interface EffectListener {
+
+    /**
+     * Draw one frame of an effect
+     * @param target what the effect is applied to, such as the index of a cell
+     * @param value current value of the effect, reaching 0 on its final frame
+     */
+    void effectStep(int target, double value);
+}
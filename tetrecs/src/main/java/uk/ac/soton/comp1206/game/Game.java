@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.application.Platform;
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
 import javafx.util.Pair;
@@ -13,6 +12,7 @@ import uk.ac.soton.comp1206.event.GameLoopListener;
 import uk.ac.soton.comp1206.event.LineClearedListener;
 import uk.ac.soton.comp1206.event.NextPieceListener;
 import uk.ac.soton.comp1206.media.Multimedia;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
 
 import java.util.*;
 import java.util.concurrent.*;
@@ -96,6 +96,11 @@ public class Game {
      */
     protected Multimedia multimedia = new Multimedia();
 
+    /**
+     * Statistics of this game, for the player's statistics
+     */
+    protected final GameStatistics statistics;
+
     /**
      * Create a new game with the specified rows and columns. Creates a corresponding grid model.
      * @param cols number of columns
@@ -107,6 +112,9 @@ public class Game {
 
         //Create a new grid model to represent the game state
         this.grid = new Grid(cols,rows);
+
+        //A move can clear every column and every row at once
+        this.statistics = new GameStatistics(cols + rows);
     }
 
     public IntegerProperty livesProperty() {
@@ -130,6 +138,7 @@ public class Game {
      */
     public void start() {
         logger.info("Starting game");
+        statistics.started();
         initialiseGame();
         startLoop();
     }
@@ -151,10 +160,19 @@ public class Game {
      */
     public boolean blockClicked(GameBlock gameBlock) {
         //Get the position of this block
-        int x = gameBlock.getX();
-        int y = gameBlock.getY();
+        return blockClicked(gameBlock.getX(), gameBlock.getY());
+    }
+
+    /**
+     * Handle what should happen when the cell at a given column and row is clicked
+     * @param x column
+     * @param y row
+     * @return True or False whether a piece has been placed
+     */
+    public boolean blockClicked(int x, int y) {
         if(grid.canPlayPiece(currentPiece, x, y)) {
             grid.playPiece(currentPiece, x, y);
+            statistics.piecePlaced();
             nextPiece();
             afterPiece();
             return true;
@@ -204,12 +222,14 @@ public class Game {
             clear(blocksToBeCleared); // Clears Blocks
             score(lines, blocksToBeCleared.size()); // Increments Score
             this.multiplier.set(this.multiplier.add(1).get()); // Increments Multiplier
+            statistics.linesCleared(lines);
             if(lineClearedListener != null) {
                 lineClearedListener.lineClear(blocksToBeCleared); //Calls Listener
                 logger.info("Clear Lines");
             }
         } else {
             this.multiplier.set(1); //Resets Multiplier
+            statistics.noLinesCleared();
         }
     }
 
@@ -232,6 +252,7 @@ public class Game {
     public void score(int lines, int blocks){
         int scoreToAdd = lines*blocks*10*this.multiplier.get();
         this.score.set(this.score.add(scoreToAdd).get());
+        statistics.scored(scoreToAdd);
         logger.info("Score added, Score: " + this.scoreProperty().get());
         int level = this.score.get() / 1000;
         if(this.level.get() != level) {
@@ -316,6 +337,14 @@ public class Game {
         currentPiece = temp;
     }
 
+    /**
+     * Returns the statistics of this game
+     * @return statistics
+     */
+    public GameStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Returns the currentPiece
      * @return currentPiece
@@ -345,6 +374,7 @@ public class Game {
      * Triggers GameLopp when the player does not play a piece
      */
     public void gameLoop() {
+        statistics.timedOut();
         nextPiece();
         if(lives.get() == 0) {
             gameOver();
@@ -387,8 +417,9 @@ public class Game {
      * Calls the gameEndListener when a game has ended
      */
     public void gameOver() {
+        statistics.finished(score.get());
         if(gameEndListener != null){
-            Platform.runLater(() -> gameEndListener.gameEnd(this));
+            PerformanceCounters.runLater(() -> gameEndListener.gameEnd(this));
         }
     }
 }
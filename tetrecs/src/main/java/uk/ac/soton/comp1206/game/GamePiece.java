@@ -23,6 +23,11 @@ public class GamePiece {
      */
     private final int value;
 
+    /**
+     * How many times this piece has been rotated clockwise from its starting shape, from 0 to 3
+     */
+    private int rotation = 0;
+
     /**
      * The name of this piece
      */
@@ -180,6 +185,27 @@ public class GamePiece {
         return blocks;
     }
 
+    /**
+     * Get how many times this piece has been rotated clockwise from its starting shape
+     * @return rotation, from 0 to 3
+     */
+    public int getRotation() {
+        return rotation;
+    }
+
+    /**
+     * Get the block makeup of this piece at a given rotation, without rotating the piece
+     * @param rotation rotation from the starting shape, from 0 to 3
+     * @return 2D grid of the blocks representing the piece shape at that rotation
+     */
+    public int[][] getBlocks(int rotation) {
+        int[][] rotated = blocks;
+        for(int turns = Math.floorMod(rotation - this.rotation, 4); turns > 0; turns--) {
+            rotated = rotated(rotated);
+        }
+        return rotated;
+    }
+
     /**
      * Rotate this piece the given number of rotations
      * @param rotations number of rotations
@@ -194,6 +220,16 @@ public class GamePiece {
      * Rotate this piece exactly once by rotating it's 3x3 grid
      */
     public void rotate() {
+        blocks = rotated(blocks);
+        rotation = (rotation + 1) % 4;
+    }
+
+    /**
+     * Rotate a 3x3 grid of blocks once clockwise
+     * @param blocks the blocks to rotate
+     * @return a new, rotated grid
+     */
+    private static int[][] rotated(int[][] blocks) {
         int[][] rotated = new int[blocks.length][blocks[0].length];
         rotated[2][0] = blocks[0][0];
         rotated[1][0] = blocks[0][1];
@@ -207,7 +243,7 @@ public class GamePiece {
         rotated[1][2] = blocks[2][1];
         rotated[0][2] = blocks[2][2];
 
-        blocks = rotated;
+        return rotated;
     }
 
 
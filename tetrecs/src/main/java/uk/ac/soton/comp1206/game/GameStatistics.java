@@ -0,0 +1,201 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * GameStatistics counts what happens during a single game, for the per-player statistics.
+ *
+ * The Game reports each event as it happens, and every event is a constant-time update of a few counters. Events
+ * come from both the JavaFX thread (pieces) and the game timer thread (timeouts), so all methods are synchronized.
+ */
+public class GameStatistics {
+
+    /**
+     * Pieces played onto the board
+     */
+    private int piecesPlaced;
+
+    /**
+     * Turns lost to the timer
+     */
+    private int timeouts;
+
+    /**
+     * Number of moves which cleared each number of lines at once
+     */
+    private final int[] linesByCount;
+
+    /**
+     * Consecutive moves which have cleared lines
+     */
+    private int streak;
+
+    /**
+     * Longest run of consecutive moves which cleared lines
+     */
+    private int longestStreak;
+
+    /**
+     * Most points scored by a single move
+     */
+    private int bestMove;
+
+    /**
+     * Total time taken to play pieces, in milliseconds
+     */
+    private long moveMillis;
+
+    /**
+     * When the current turn started
+     */
+    private long turnStarted = System.currentTimeMillis();
+
+    /**
+     * The final score, once the game is over
+     */
+    private int finalScore;
+
+    /**
+     * Whether the game is over
+     */
+    private boolean finished = false;
+
+    /**
+     * Create statistics for a new game
+     * @param maxLines most lines a single move can clear
+     */
+    public GameStatistics(int maxLines) {
+        linesByCount = new int[maxLines + 1];
+    }
+
+    /**
+     * Record the start of the game, starting the first turn
+     */
+    public synchronized void started() {
+        turnStarted = System.currentTimeMillis();
+    }
+
+    /**
+     * Record a piece being played, and the time taken to play it
+     */
+    public synchronized void piecePlaced() {
+        long now = System.currentTimeMillis();
+        piecesPlaced++;
+        moveMillis += now - turnStarted;
+        turnStarted = now;
+    }
+
+    /**
+     * Record a move clearing lines, extending the streak
+     * @param lines number of lines cleared
+     */
+    public synchronized void linesCleared(int lines) {
+        linesByCount[Math.min(lines, linesByCount.length - 1)]++;
+        streak++;
+        longestStreak = Math.max(longestStreak, streak);
+    }
+
+    /**
+     * Record a move which cleared nothing, ending the streak
+     */
+    public synchronized void noLinesCleared() {
+        streak = 0;
+    }
+
+    /**
+     * Record points scored by a move
+     * @param points points added
+     */
+    public synchronized void scored(int points) {
+        bestMove = Math.max(bestMove, points);
+    }
+
+    /**
+     * Record a turn lost to the timer, ending the streak and starting a new turn
+     */
+    public synchronized void timedOut() {
+        timeouts++;
+        streak = 0;
+        turnStarted = System.currentTimeMillis();
+    }
+
+    /**
+     * Record the end of the game
+     * @param score the final score
+     */
+    public synchronized void finished(int score) {
+        finalScore = score;
+        finished = true;
+    }
+
+    /**
+     * Get the number of pieces played onto the board
+     * @return number of pieces
+     */
+    public synchronized int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    /**
+     * Get the number of turns lost to the timer
+     * @return number of timeouts
+     */
+    public synchronized int getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Get the number of moves which cleared a number of lines at once
+     * @param lines number of lines
+     * @return number of moves
+     */
+    public synchronized int getLinesCleared(int lines) {
+        return lines < linesByCount.length ? linesByCount[lines] : 0;
+    }
+
+    /**
+     * Get the most lines which can be counted separately
+     * @return largest number of lines
+     */
+    public int getMaxLines() {
+        return linesByCount.length - 1;
+    }
+
+    /**
+     * Get the longest run of consecutive moves which cleared lines
+     * @return longest streak
+     */
+    public synchronized int getLongestStreak() {
+        return longestStreak;
+    }
+
+    /**
+     * Get the most points scored by a single move
+     * @return best move's points
+     */
+    public synchronized int getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Get the total time taken to play pieces
+     * @return time in milliseconds
+     */
+    public synchronized long getMoveMillis() {
+        return moveMillis;
+    }
+
+    /**
+     * Get the final score
+     * @return final score, or 0 if the game is not over
+     */
+    public synchronized int getFinalScore() {
+        return finalScore;
+    }
+
+    /**
+     * Whether the game is over
+     * @return true once the game has finished
+     */
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+}
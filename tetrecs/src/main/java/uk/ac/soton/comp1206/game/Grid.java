@@ -2,6 +2,7 @@ package uk.ac.soton.comp1206.game;
 
 import javafx.beans.property.IntegerProperty;
 import javafx.beans.property.SimpleIntegerProperty;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
 
 /**
  * The Grid is a model which holds the state of a game board. It is made up of a set of Integer values arranged in a 2D
@@ -68,6 +69,9 @@ public class Grid {
      * @param value the new value
      */
     public void set(int x, int y, int value) {
+        if(grid[x][y].get() != value) {
+            PerformanceCounters.gridChange();
+        }
         grid[x][y].set(value);
     }
 
@@ -155,7 +159,7 @@ public class Grid {
     public void clearGrid() {
         for(int x = 0; x < cols; x++) {
             for(int y = 0; y < rows; y++) {
-                grid[x][y].set(0);
+                set(x, y, 0);
             }
         }
     }
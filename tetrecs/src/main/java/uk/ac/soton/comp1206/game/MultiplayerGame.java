@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.game;
 
-import javafx.application.Platform;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.network.Communicator;
@@ -30,6 +29,11 @@ public class MultiplayerGame extends Game{
      */
     protected LinkedList<GamePiece> queue = new LinkedList<>();
 
+    /**
+     * Decides how many pieces to request ahead, and tracks queue depth and stalls
+     */
+    protected PiecePrefetcher prefetcher = new PiecePrefetcher();
+
     /**
      * Create a new game with the specified rows and columns. Creates a corresponding grid model.
      *
@@ -43,29 +47,91 @@ public class MultiplayerGame extends Game{
     }
 
     /**
-     * Handles what should happen when a new piece is received from the server
+     * Handles what should happen when a new piece is received from the server. If the player was waiting on an empty
+     * queue, the piece is handed straight to them.
      * @param gamePiece
      */
-    public void newPiece(GamePiece gamePiece) {
+    public synchronized void newPiece(GamePiece gamePiece) {
         if(currentPiece == null) {
-            currentPiece = gamePiece; //First Piece
+            currentPiece = gamePiece; //First Piece, or recovering from a stall
+            nextPieceListener.nextPiece(currentPiece, followingPiece);
         } else if(followingPiece == null){
-            followingPiece = gamePiece; //Second Piece
+            followingPiece = gamePiece; //Second Piece, or recovering from a stall
             nextPieceListener.nextPiece(currentPiece, followingPiece);
         } else {
             queue.add(gamePiece);//Creates Queue
         }
+        prefetcher.setQueueDepth(queue.size());
     }
 
     /**
-     * Reassigns current and following pieces, and removing pieces from the queue
+     * Reassigns current and following pieces, and removing pieces from the queue. Tops the queue up to the depth
+     * chosen by the prefetcher. If the queue has run dry, the following piece is left empty until the server replies.
      */
     @Override
-    public void nextPiece() {
+    public synchronized void nextPiece() {
+        prefetcher.moveMade();
         currentPiece = followingPiece;
-        followingPiece = queue.remove();
+        followingPiece = queue.poll();
+        if(followingPiece == null) {
+            prefetcher.stalled();
+        }
+        prefetcher.setQueueDepth(queue.size());
         nextPieceListener.nextPiece(currentPiece, followingPiece);
-        communicator.send("PIECE");
+        requestPieces(prefetcher.piecesToRequest());
+    }
+
+    /**
+     * Asks the server for the given number of pieces
+     * @param count number of pieces to request
+     */
+    protected void requestPieces(int count) {
+        for(int x = 0; x < count; x++) {
+            prefetcher.requestSent();
+            communicator.send("PIECE");
+        }
+    }
+
+    /**
+     * Handle what should happen when a particular cell is clicked. Nothing can be placed while waiting for a piece.
+     * @param x column
+     * @param y row
+     * @return True or False whether a piece has been placed
+     */
+    @Override
+    public synchronized boolean blockClicked(int x, int y) {
+        if(currentPiece == null) {
+            return false;
+        }
+        return super.blockClicked(x, y);
+    }
+
+    /**
+     * Rotates the currentPiece, if there is one
+     */
+    @Override
+    public synchronized void rotateCurrentPiece() {
+        if(currentPiece != null) {
+            super.rotateCurrentPiece();
+        }
+    }
+
+    /**
+     * Swaps currentPiece and followingPiece, if both have arrived
+     */
+    @Override
+    public synchronized void swapCurrentPiece() {
+        if(currentPiece != null && followingPiece != null) {
+            super.swapCurrentPiece();
+        }
+    }
+
+    /**
+     * Get the prefetcher, which exposes queue depth, stall count and round trip metrics
+     * @return the piece prefetcher
+     */
+    public PiecePrefetcher getPrefetcher() {
+        return prefetcher;
     }
 
     /**
@@ -91,11 +157,10 @@ public class MultiplayerGame extends Game{
     public void initialiseGame() {
         timer = Executors.newSingleThreadScheduledExecutor();
         communicator = gameWindow.getCommunicator();
-        //Listens for messages from communicator and handles the command
-        communicator.addListener(message -> Platform.runLater(() -> listen(message.trim())));
-        for(int x = 0; x < 5; x++) {
-            communicator.send("PIECE");
-        }
+        //Listens for messages from communicator (delivered on the JavaFX thread) and handles the command
+        communicator.addListener(message -> listen(message.trim()));
+        //Current and following pieces, plus the initial queue
+        requestPieces(2 + prefetcher.getTargetDepth());
     }
 
     /**
@@ -117,6 +182,7 @@ public class MultiplayerGame extends Game{
     protected void listen(String message) {
         if(message.contains("PIECE")) {
             logger.info("Adding piece to queue");
+            prefetcher.replyReceived();
             message = message.replace("PIECE ", "");
             GamePiece gamePiece = GamePiece.createPiece(Integer.parseInt(message));
             newPiece(gamePiece);
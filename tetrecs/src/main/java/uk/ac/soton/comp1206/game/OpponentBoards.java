@@ -0,0 +1,212 @@
+package uk.ac.soton.comp1206.game;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+
+/**
+ * OpponentBoards is a compact model of the boards of every other player in a multiplayer game.
+ *
+ * Each player's board is stored as one byte per cell in a single shared array, in the same column-major order as
+ * BOARD messages. Cells which change are marked dirty, so a renderer only needs to repaint those.
+ */
+public class OpponentBoards {
+
+    /**
+     * Number of columns in each board
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in each board
+     */
+    private final int rows;
+
+    /**
+     * Number of cells in each board
+     */
+    private final int cells;
+
+    /**
+     * Index of each player's board
+     */
+    private final HashMap<String, Integer> index = new HashMap<>();
+
+    /**
+     * Player names, in index order
+     */
+    private final ArrayList<String> players = new ArrayList<>();
+
+    /**
+     * Cell values of every board, board after board
+     */
+    private byte[] values = new byte[0];
+
+    /**
+     * Cells which have changed since they were last painted, one bit per cell of every board
+     */
+    private final BitSet dirty = new BitSet();
+
+    /**
+     * Create a new, empty set of boards
+     * @param cols number of columns in each board
+     * @param rows number of rows in each board
+     */
+    public OpponentBoards(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        this.cells = cols * rows;
+    }
+
+    /**
+     * Add a player with an empty board, if they don't already have one
+     * @param player player name
+     * @return the index of the player's board
+     */
+    public int add(String player) {
+        Integer existing = index.get(player);
+        if(existing != null) {
+            return existing;
+        }
+        int board = players.size();
+        players.add(player);
+        index.put(player, board);
+        if(values.length < (board + 1) * cells) {
+            //Grow by doubling, so adding many players stays cheap
+            byte[] grown = new byte[Math.max(cells, values.length * 2)];
+            System.arraycopy(values, 0, grown, 0, values.length);
+            values = grown;
+        }
+        return board;
+    }
+
+    /**
+     * Update a player's board from the body of a BOARD message ("player:v v v ...").
+     * Values are parsed in place, without splitting the message.
+     * @param board the BOARD message body
+     * @return true if the player is known and any cell changed
+     */
+    public boolean update(String board) {
+        int split = board.indexOf(':');
+        if(split < 0) {
+            return false;
+        }
+        Integer player = index.get(board.substring(0, split));
+        if(player == null) {
+            return false;
+        }
+        return update(player, board, split + 1);
+    }
+
+    /**
+     * Update a board from space separated cell values. Values too big to store in a byte are stored as empty.
+     * @param player index of the player's board
+     * @param board text holding the values
+     * @param start position of the first value
+     * @return true if any cell changed
+     */
+    protected boolean update(int player, String board, int start) {
+        int base = player * cells;
+        int cell = 0;
+        int value = -1;
+        boolean changed = false;
+        for(int i = start; i <= board.length() && cell < cells; i++) {
+            char c = i < board.length() ? board.charAt(i) : ' ';
+            if(c >= '0' && c <= '9') {
+                //Stop growing once out of range, so long runs of digits can't overflow
+                value = Math.min((value < 0 ? 0 : value * 10) + (c - '0'), Byte.MAX_VALUE + 1);
+            } else if(value >= 0) {
+                if(value > Byte.MAX_VALUE) {
+                    //Doesn't fit in a byte, so would wrap negative; treat it as empty
+                    value = 0;
+                }
+                if(values[base + cell] != value) {
+                    values[base + cell] = (byte) value;
+                    dirty.set(base + cell);
+                    changed = true;
+                }
+                cell++;
+                value = -1;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Get the index of a player's board
+     * @param player player name
+     * @return index, or -1 if the player is unknown
+     */
+    public int indexOf(String player) {
+        Integer board = index.get(player);
+        return board == null ? -1 : board;
+    }
+
+    /**
+     * Get the name of the player at an index
+     * @param board index of the board
+     * @return player name
+     */
+    public String getPlayer(int board) {
+        return players.get(board);
+    }
+
+    /**
+     * Get the value of a cell
+     * @param board index of the board
+     * @param x column
+     * @param y row
+     * @return value of the cell
+     */
+    public int get(int board, int x, int y) {
+        return values[board * cells + x * rows + y];
+    }
+
+    /**
+     * Get the next dirty cell at or after a position
+     * @param from position to start looking from
+     * @return the position (board * cells + x * rows + y) of the next dirty cell, or -1 if there are none
+     */
+    public int nextDirty(int from) {
+        return dirty.nextSetBit(from);
+    }
+
+    /**
+     * Mark every cell as clean
+     */
+    public void clearDirty() {
+        dirty.clear();
+    }
+
+    /**
+     * Get the number of players
+     * @return number of boards
+     */
+    public int size() {
+        return players.size();
+    }
+
+    /**
+     * Get the number of columns in each board
+     * @return number of columns
+     */
+    public int getCols() {
+        return cols;
+    }
+
+    /**
+     * Get the number of rows in each board
+     * @return number of rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Get the number of cells in each board
+     * @return number of cells
+     */
+    public int getCells() {
+        return cells;
+    }
+}
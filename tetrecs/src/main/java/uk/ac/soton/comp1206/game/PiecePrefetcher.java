@@ -0,0 +1,179 @@
+package uk.ac.soton.comp1206.game;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+
+/**
+ * The PiecePrefetcher decides how many pieces a MultiplayerGame should have requested ahead of the player.
+ *
+ * It measures the round trip time of each PIECE request (the server replies in order, so the oldest outstanding
+ * request matches the next reply) and the time between moves. The target queue depth is enough pieces to cover one
+ * round trip at the current move rate, plus a safety margin, so the queue should never run dry.
+ *
+ * All methods are synchronized, as requests are sent from both the JavaFX thread and the game timer thread.
+ */
+public class PiecePrefetcher {
+
+    private static final Logger logger = LogManager.getLogger(PiecePrefetcher.class);
+
+    /**
+     * The smallest number of pieces to keep queued ahead
+     */
+    public static final int MIN_DEPTH = 2;
+
+    /**
+     * The largest number of pieces to keep queued ahead
+     */
+    public static final int MAX_DEPTH = 12;
+
+    /**
+     * Extra pieces kept on top of the measured requirement to absorb jitter
+     */
+    private static final int SAFETY_MARGIN = 1;
+
+    /**
+     * Weight given to each new sample in the moving averages
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Send times (in nanoseconds) of requests that have not been answered yet
+     */
+    private final ArrayDeque<Long> outstanding = new ArrayDeque<>();
+
+    /**
+     * Smoothed round trip time in nanoseconds, 0 until the first reply
+     */
+    private double roundTripTime = 0;
+
+    /**
+     * Smoothed time between moves in nanoseconds, 0 until the second move
+     */
+    private double moveInterval = 0;
+
+    /**
+     * Time of the last move in nanoseconds
+     */
+    private long lastMove = 0;
+
+    /**
+     * Number of pieces currently held in the queue
+     */
+    private int queueDepth = 0;
+
+    /**
+     * Number of times the player needed a piece but the queue was empty
+     */
+    private int stallCount = 0;
+
+    /**
+     * Record that a PIECE request has been sent
+     */
+    public synchronized void requestSent() {
+        outstanding.add(System.nanoTime());
+    }
+
+    /**
+     * Record that a PIECE reply has been received, updating the round trip time
+     */
+    public synchronized void replyReceived() {
+        Long sent = outstanding.poll();
+        if(sent == null) {
+            return;
+        }
+        double sample = System.nanoTime() - sent;
+        roundTripTime = roundTripTime == 0 ? sample : roundTripTime + SMOOTHING * (sample - roundTripTime);
+    }
+
+    /**
+     * Record that the player has moved on to the next piece, updating the move rate
+     */
+    public synchronized void moveMade() {
+        long now = System.nanoTime();
+        if(lastMove != 0) {
+            double sample = now - lastMove;
+            moveInterval = moveInterval == 0 ? sample : moveInterval + SMOOTHING * (sample - moveInterval);
+        }
+        lastMove = now;
+    }
+
+    /**
+     * Record that the player needed a piece but none was queued
+     */
+    public synchronized void stalled() {
+        stallCount++;
+        logger.warn("Piece queue ran dry, stalls: {}, target depth: {}", stallCount, getTargetDepth());
+    }
+
+    /**
+     * Update the number of pieces currently held in the queue
+     * @param queueDepth pieces in the queue
+     */
+    public synchronized void setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+    }
+
+    /**
+     * Works out how many pieces should be queued ahead, based on the round trip time and move rate
+     * @return target number of queued pieces
+     */
+    public synchronized int getTargetDepth() {
+        if(roundTripTime == 0 || moveInterval == 0) {
+            return MIN_DEPTH + SAFETY_MARGIN; //No measurements yet
+        }
+        int needed = (int) Math.ceil(roundTripTime / moveInterval) + SAFETY_MARGIN;
+        //Every stall suggests the estimate is too low, so widen the window
+        needed += Math.min(stallCount, MAX_DEPTH);
+        return Math.max(MIN_DEPTH, Math.min(MAX_DEPTH, needed));
+    }
+
+    /**
+     * Works out how many new requests should be sent to reach the target depth
+     * @return number of PIECE requests to send
+     */
+    public synchronized int piecesToRequest() {
+        return Math.max(0, getTargetDepth() - queueDepth - outstanding.size());
+    }
+
+    /**
+     * Get the number of pieces currently held in the queue
+     * @return queue depth
+     */
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Get the number of requests still waiting for a reply
+     * @return outstanding requests
+     */
+    public synchronized int getOutstanding() {
+        return outstanding.size();
+    }
+
+    /**
+     * Get the number of times the queue has run dry
+     * @return stall count
+     */
+    public synchronized int getStallCount() {
+        return stallCount;
+    }
+
+    /**
+     * Get the smoothed round trip time of a PIECE request
+     * @return round trip time in milliseconds
+     */
+    public synchronized double getRoundTripMillis() {
+        return roundTripTime / 1_000_000.0;
+    }
+
+    /**
+     * Get the smoothed time between moves
+     * @return move interval in milliseconds
+     */
+    public synchronized double getMoveIntervalMillis() {
+        return moveInterval / 1_000_000.0;
+    }
+}
@@ -0,0 +1,129 @@
+package uk.ac.soton.comp1206.game;
+
+/**
+ * The PlacementMap records where the current piece can be placed on a grid, at every anchor cell and every rotation.
+ *
+ * The table is worked out in one pass the first time it is needed after the piece or the grid changes, and then
+ * answers every lookup from an array. Rotating the piece only changes which part of the table is read, so it needs no
+ * new pass. This lets a placement preview follow the mouse without calling Grid.canPlayPiece on every move.
+ */
+public class PlacementMap {
+
+    /**
+     * Number of rotations of a piece
+     */
+    private static final int ROTATIONS = 4;
+
+    /**
+     * The grid pieces are placed on
+     */
+    private final Grid grid;
+
+    /**
+     * Number of columns in the grid
+     */
+    private final int cols;
+
+    /**
+     * Number of rows in the grid
+     */
+    private final int rows;
+
+    /**
+     * Whether the piece fits at each rotation and anchor, indexed by (rotation * cols + x) * rows + y
+     */
+    private final boolean[] valid;
+
+    /**
+     * The piece being placed, or null if there is none
+     */
+    private GamePiece piece;
+
+    /**
+     * Whether the table needs working out again
+     */
+    private boolean stale = true;
+
+    /**
+     * Create a placement map for a grid. The table goes stale whenever a cell of the grid changes.
+     * @param grid the grid pieces are placed on
+     */
+    public PlacementMap(Grid grid) {
+        this.grid = grid;
+        this.cols = grid.getCols();
+        this.rows = grid.getRows();
+        this.valid = new boolean[ROTATIONS * cols * rows];
+
+        for(var x = 0; x < cols; x++) {
+            for(var y = 0; y < rows; y++) {
+                grid.getGridProperty(x, y).addListener((observable, oldValue, newValue) -> stale = true);
+            }
+        }
+    }
+
+    /**
+     * Set the piece being placed
+     * @param piece the piece, or null if there is none
+     */
+    public void setPiece(GamePiece piece) {
+        this.piece = piece;
+        stale = true;
+    }
+
+    /**
+     * Get the piece being placed
+     * @return the piece, or null if there is none
+     */
+    public GamePiece getPiece() {
+        return piece;
+    }
+
+    /**
+     * Whether the piece, at its current rotation, can be placed with its centre on a cell
+     * @param x column
+     * @param y row
+     * @return true if the piece fits there
+     */
+    public boolean canPlay(int x, int y) {
+        if(piece == null || x < 0 || y < 0 || x >= cols || y >= rows) {
+            return false;
+        }
+        if(stale) {
+            update();
+        }
+        return valid[(piece.getRotation() * cols + x) * rows + y];
+    }
+
+    /**
+     * Work out the whole table for the current piece and grid
+     */
+    private void update() {
+        for(int rotation = 0; rotation < ROTATIONS; rotation++) {
+            int[][] blocks = piece.getBlocks(rotation);
+            for(int x = 0; x < cols; x++) {
+                for(int y = 0; y < rows; y++) {
+                    valid[(rotation * cols + x) * rows + y] = fits(blocks, x, y);
+                }
+            }
+        }
+        stale = false;
+    }
+
+    /**
+     * Whether a piece's blocks fit on the grid with their centre on a cell
+     * @param blocks the piece's blocks
+     * @param placeX column of the centre
+     * @param placeY row of the centre
+     * @return true if every block lands on an empty cell
+     */
+    private boolean fits(int[][] blocks, int placeX, int placeY) {
+        for(int x = 0; x < blocks.length; x++) {
+            for(int y = 0; y < blocks[x].length; y++) {
+                if(blocks[x][y] != 0 && grid.get(x + placeX - 1, y + placeY - 1) != 0) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
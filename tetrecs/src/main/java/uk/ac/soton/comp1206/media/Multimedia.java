@@ -12,11 +12,6 @@ import org.apache.logging.log4j.Logger;
 public class Multimedia {
     private static final Logger logger = LogManager.getLogger(Multimedia.class);
 
-    /**
-     * mediaPlayer is used to play sounds
-     */
-    private static MediaPlayer mediaPlayer;
-
     /**
      * backgroundPlayer is used to play and background music
      */
@@ -51,23 +46,11 @@ public class Multimedia {
     }
 
     /**
-     * Uses the mediaPlayer and plays the given sound
+     * Plays the given sound from the preloaded SoundBank
      * @param sound sound to be played
      */
     public void playSound(String sound) {
-        String soundToPlay = Multimedia.class.getResource("/sounds/" + sound).toExternalForm();
-        //uses the given string to find the wanted sound to be played in the resources folder
-
-        try {
-            Media play = new Media(soundToPlay);
-            mediaPlayer = new MediaPlayer(play);
-
-            mediaPlayer.play();
-            logger.info("Playing Media Sound: " + sound);
-        } catch(Exception e) {
-            e.printStackTrace();
-            logger.error(e.toString());
-        }
+        SoundBank.getDefault().play(sound);
     }
 
     /**
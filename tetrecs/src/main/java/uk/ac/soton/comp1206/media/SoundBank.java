@@ -0,0 +1,205 @@
+package uk.ac.soton.comp1206.media;
+
+import javafx.scene.media.AudioClip;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The SoundBank holds every sound effect decoded in memory, so playing one starts straight away.
+ *
+ * Every file under /sounds is loaded as an AudioClip once, at startup. At most a fixed number of sounds play at once,
+ * which can be changed with -Dtetrecs.sound.voices. Each voice remembers when the sound it is playing finishes; if
+ * every voice is busy, the new sound is skipped. Sounds already playing are never cut off, as stopping an AudioClip
+ * stops every copy of it. Playing a sound looks up the clip and claims a voice without allocating anything.
+ *
+ * Sounds are played from both the JavaFX thread and the game timer thread, so every method is synchronized.
+ */
+public class SoundBank {
+
+    private static final Logger logger = LogManager.getLogger(SoundBank.class);
+
+    /**
+     * Resource folder holding the sounds
+     */
+    private static final String DIRECTORY = "/sounds";
+
+    /**
+     * Number of sounds which can play at once
+     */
+    public static final int VOICES = Math.max(1, Integer.getInteger("tetrecs.sound.voices", 8));
+
+    /**
+     * How long a voice is held for a sound whose length can't be read, in nanoseconds
+     */
+    private static final long DEFAULT_LENGTH = 1_000_000_000L;
+
+    /**
+     * The shared sound bank
+     */
+    private static SoundBank instance;
+
+    /**
+     * Decoded sounds by file name
+     */
+    private final HashMap<String, AudioClip> clips = new HashMap<>();
+
+    /**
+     * Length of each sound by file name, in nanoseconds
+     */
+    private final HashMap<String, Long> lengths = new HashMap<>();
+
+    /**
+     * When the sound on each voice finishes, from System.nanoTime
+     */
+    private final long[] voiceEnds = new long[VOICES];
+
+    /**
+     * Whether each voice has ever been used, as nanoTime can be negative
+     */
+    private final boolean[] voiceUsed = new boolean[VOICES];
+
+    /**
+     * Get the shared sound bank
+     * @return the sound bank
+     */
+    public static synchronized SoundBank getDefault() {
+        if(instance == null) {
+            instance = new SoundBank();
+        }
+        return instance;
+    }
+
+    /**
+     * Decode every sound under /sounds, if they have not been already
+     */
+    public synchronized void preload() {
+        for(String name : listSounds()) {
+            if(!clips.containsKey(name)) {
+                load(name);
+            }
+        }
+        logger.info("Loaded {} sounds with {} voices", clips.size(), VOICES);
+    }
+
+    /**
+     * Play a sound on a free voice, or skip it if every voice is busy
+     * @param name file name of the sound
+     */
+    public synchronized void play(String name) {
+        AudioClip clip = clips.get(name);
+        if(clip == null) {
+            //Not found when preloading, so load it now
+            clip = load(name);
+            if(clip == null) {
+                return;
+            }
+        }
+        long now = System.nanoTime();
+        for(int voice = 0; voice < VOICES; voice++) {
+            if(!voiceUsed[voice] || voiceEnds[voice] - now <= 0) {
+                voiceUsed[voice] = true;
+                voiceEnds[voice] = now + lengths.get(name);
+                clip.play();
+                logger.debug("Playing sound {}", name);
+                return;
+            }
+        }
+        logger.debug("Every voice is busy, skipping sound {}", name);
+    }
+
+    /**
+     * Decode a sound and work out its length
+     * @param name file name of the sound
+     * @return the clip, or null if it couldn't be loaded
+     */
+    private AudioClip load(String name) {
+        URL url = SoundBank.class.getResource(DIRECTORY + "/" + name);
+        if(url == null) {
+            logger.error("No such sound: " + name);
+            return null;
+        }
+        try {
+            var clip = new AudioClip(url.toExternalForm());
+            clips.put(name, clip);
+            lengths.put(name, lengthOf(url));
+            return clip;
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.error("Unable to load sound " + name);
+            return null;
+        }
+    }
+
+    /**
+     * Read the length of a sound from its header
+     * @param url the sound
+     * @return length in nanoseconds, or a default if the format isn't understood
+     */
+    private long lengthOf(URL url) {
+        try {
+            AudioFileFormat format = AudioSystem.getAudioFileFormat(url);
+            if(format.getFrameLength() > 0 && format.getFormat().getFrameRate() > 0) {
+                return (long) (format.getFrameLength() / (double) format.getFormat().getFrameRate() * 1e9);
+            }
+        } catch (UnsupportedAudioFileException | IOException e) {
+            logger.debug("Unable to read the length of {}", url);
+        }
+        return DEFAULT_LENGTH;
+    }
+
+    /**
+     * List the files under /sounds, from the folder or from inside the jar
+     * @return file names, or none if the folder can't be listed
+     */
+    private List<String> listSounds() {
+        URL url = SoundBank.class.getResource(DIRECTORY);
+        if(url == null) {
+            logger.error("Unable to find " + DIRECTORY + ", sounds will load when first played");
+            return List.of();
+        }
+        try {
+            URI uri = url.toURI();
+            if("jar".equals(uri.getScheme())) {
+                try (FileSystem jar = FileSystems.newFileSystem(uri, Map.of())) {
+                    return listFiles(jar.getPath(DIRECTORY));
+                }
+            }
+            return listFiles(Paths.get(uri));
+        } catch (IOException | URISyntaxException e) {
+            e.printStackTrace();
+            logger.error("Unable to list " + DIRECTORY + ", sounds will load when first played");
+            return List.of();
+        }
+    }
+
+    /**
+     * List the regular files in a folder
+     * @param directory the folder
+     * @return file names
+     * @throws IOException if the folder can't be read
+     */
+    private List<String> listFiles(Path directory) throws IOException {
+        var names = new ArrayList<String>();
+        try (var files = Files.list(directory)) {
+            files.filter(Files::isRegularFile).forEach(file -> names.add(file.getFileName().toString()));
+        }
+        return names;
+    }
+}
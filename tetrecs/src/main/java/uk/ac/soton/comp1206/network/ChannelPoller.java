@@ -0,0 +1,161 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ChannelPoller asks the server for the channel list (LIST) with an adaptive interval.
+ *
+ * Polling starts quickly. Each reply which doesn't change the list doubles the interval, up to a maximum, and any
+ * change drops it back to the minimum. Polling can be paused while the list can't be seen, and resumes with an
+ * immediate poll. The poller owns a single daemon thread, which must be released with shutdown().
+ */
+public class ChannelPoller {
+
+    private static final Logger logger = LogManager.getLogger(ChannelPoller.class);
+
+    /**
+     * Shortest time between polls
+     */
+    public static final long MIN_INTERVAL = 2000;
+
+    /**
+     * Longest time between polls
+     */
+    public static final long MAX_INTERVAL = 16000;
+
+    /**
+     * Communicator the LIST requests are sent with
+     */
+    private final Communicator communicator;
+
+    /**
+     * Thread the polls are scheduled on
+     */
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Channel-Poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * The next scheduled poll
+     */
+    private ScheduledFuture<?> next;
+
+    /**
+     * Current time between polls
+     */
+    private long interval = MIN_INTERVAL;
+
+    /**
+     * Whether polling is paused
+     */
+    private boolean paused = true;
+
+    /**
+     * Create a new poller, initially paused
+     * @param communicator communicator to send LIST with
+     */
+    public ChannelPoller(Communicator communicator) {
+        this.communicator = communicator;
+    }
+
+    /**
+     * Start or resume polling, polling straight away
+     */
+    public synchronized void resume() {
+        if(!paused || executor.isShutdown()) {
+            return;
+        }
+        logger.info("Resuming channel polling");
+        paused = false;
+        interval = MIN_INTERVAL;
+        schedule(0);
+    }
+
+    /**
+     * Stop polling until resumed
+     */
+    public synchronized void pause() {
+        if(paused) {
+            return;
+        }
+        logger.info("Pausing channel polling");
+        paused = true;
+        if(next != null) {
+            next.cancel(false);
+        }
+    }
+
+    /**
+     * Adapt the interval to a reply from the server
+     * @param changed whether the channel list changed
+     */
+    public synchronized void listReceived(boolean changed) {
+        long previous = interval;
+        interval = changed ? MIN_INTERVAL : Math.min(MAX_INTERVAL, interval * 2);
+        if(interval != previous) {
+            logger.debug("Channel poll interval now " + interval + "ms");
+        }
+        if(changed && !paused && previous > MIN_INTERVAL) {
+            //Something is happening, so don't wait out the long interval
+            schedule(interval);
+        }
+    }
+
+    /**
+     * Poll straight away and return to the shortest interval, for when the list is likely to have changed (such as
+     * after creating or leaving a channel)
+     */
+    public synchronized void pollNow() {
+        if(paused) {
+            return;
+        }
+        interval = MIN_INTERVAL;
+        schedule(0);
+    }
+
+    /**
+     * Stop polling and release the polling thread
+     */
+    public synchronized void shutdown() {
+        paused = true;
+        executor.shutdownNow();
+    }
+
+    /**
+     * Get the current time between polls
+     * @return interval in milliseconds
+     */
+    public synchronized long getInterval() {
+        return interval;
+    }
+
+    /**
+     * Schedule the next poll, replacing any already scheduled
+     * @param delay milliseconds until the poll
+     */
+    private void schedule(long delay) {
+        if(next != null) {
+            next.cancel(false);
+        }
+        next = executor.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Send a LIST request and schedule the next one
+     */
+    private synchronized void poll() {
+        if(paused) {
+            return;
+        }
+        communicator.send("LIST");
+        schedule(interval);
+    }
+}
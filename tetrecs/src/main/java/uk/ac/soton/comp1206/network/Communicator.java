@@ -5,9 +5,7 @@ import javafx.scene.control.Alert;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.event.CommunicationsListener;
-
-import java.util.ArrayList;
-import java.util.List;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
 
 /**
  * Uses web sockets to talk to a web socket server and relays communication to attached listeners
@@ -19,12 +17,44 @@ public class Communicator {
     private static final Logger logger = LogManager.getLogger(Communicator.class);
 
     /**
-     * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages.
+     * Attached communication listeners listening to messages on this Communicator. Each will be sent any messages,
+     * batched onto the JavaFX thread.
+     */
+    private final InboundPipeline inbound = new InboundPipeline();
+
+    /**
+     * Records round trip times, message rates and queue depths of this link
+     */
+    private final NetworkTelemetry telemetry = new NetworkTelemetry();
+
+    /**
+     * Writes every frame to a capture file, if capturing was requested with -Dtetrecs.capture=path
      */
-    private final List<CommunicationsListener> handlers = new ArrayList<>();
+    private ProtocolRecorder recorder;
+
+    /**
+     * Queues outbound messages by priority, and writes them to the socket
+     */
+    private OutboundLanes outbound;
 
     private WebSocket ws = null;
 
+    /**
+     * Create a new communicator which is not connected to a server, used to replay a capture. Messages sent are dropped.
+     */
+    private Communicator() {
+        telemetry.setInboundQueue(inbound::getPendingCount);
+        logger.info("Communicator is offline");
+    }
+
+    /**
+     * Create a new communicator which is not connected to a server. Received messages can be supplied with inject.
+     * @return an offline communicator
+     */
+    public static Communicator offline() {
+        return new Communicator();
+    }
+
     /**
      * Create a new communicator to the given web socket server
      *
@@ -32,6 +62,16 @@ public class Communicator {
      */
     public Communicator(String server) {
 
+        String capture = System.getProperty("tetrecs.capture");
+        if(capture != null) {
+            try {
+                recorder = new ProtocolRecorder(capture);
+            } catch (Exception e) {
+                e.printStackTrace();
+                logger.error("Unable to start capture: " + e.getMessage());
+            }
+        }
+
         try {
             var socketFactory = new WebSocketFactory();
 
@@ -50,8 +90,25 @@ public class Communicator {
                 public void onPingFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
                     logger.info("Ping? Pong!");
                 }
+                @Override
+                public void onPongFrame(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
+                    telemetry.recordPong();
+                }
+                @Override
+                public void onFrameSent(WebSocket webSocket, WebSocketFrame webSocketFrame) throws Exception {
+                    if(webSocketFrame.isTextFrame()) {
+                        telemetry.recordWritten();
+                    }
+                }
             });
 
+            //Gameplay messages are written before chat
+            outbound = new OutboundLanes(this::write, telemetry::getWireQueued);
+
+            //Track the queues. Rates and pings only run while a multiplayer game is live
+            telemetry.setInboundQueue(inbound::getPendingCount);
+            telemetry.setOutboundQueue(outbound::getQueued);
+
             //Error handling
             ws.addListener(new WebSocketAdapter() {
                 @Override
@@ -82,32 +139,81 @@ public class Communicator {
         }
     }
 
-    /** Send a message to the server
+    /** Send a message to the server. The message is queued in a lane for its priority, so gameplay messages are
+     * always written before chat.
      *
      * @param message Message to send
      */
     public void send(String message) {
         logger.info("Sending message: " + message);
 
+        if(ws == null) {
+            //Offline
+            if(recorder != null) {
+                recorder.recordOutbound(message);
+            }
+            return;
+        }
+        outbound.submit(message);
+    }
+
+    /**
+     * Write a message to the web socket. Called by the outbound lanes' sender thread.
+     * @param message Message to write
+     */
+    private void write(String message) {
+        if(recorder != null) {
+            recorder.recordOutbound(message);
+        }
+        telemetry.recordSent(message);
+        PerformanceCounters.messageOut();
         ws.sendText(message);
     }
 
     /**
-     * Add a new listener to receive messages from the server
+     * Send a ping frame to the server, so the pong can be used to measure round trip time
+     */
+    public void ping() {
+        if(ws == null) {
+            return;
+        }
+        telemetry.recordPing();
+        ws.sendPing();
+    }
+
+    /**
+     * Get the telemetry recorded for this link
+     * @return network telemetry
+     */
+    public NetworkTelemetry getTelemetry() {
+        return telemetry;
+    }
+
+    /**
+     * Add a new listener to receive messages from the server. Listeners are called on the JavaFX thread.
      * @param listener the listener to add
      */
     public void addListener(CommunicationsListener listener) {
-        this.handlers.add(listener);
+        this.inbound.addListener(listener);
+    }
+
+    /**
+     * Add a listener for a shared service which lives as long as the communicator. It is not removed when scenes
+     * clear their listeners. Called on the JavaFX thread, before the other listeners.
+     * @param listener the listener to add
+     */
+    public void addPersistentListener(CommunicationsListener listener) {
+        this.inbound.addPersistentListener(listener);
     }
 
     /**
-     * Clear all current listeners
+     * Clear all current listeners, except persistent ones
      */
     public void clearListeners() {
-        this.handlers.clear();
+        this.inbound.clearListeners();
     }
 
-    /** Receive a message from the server. Relay to any attached listeners
+    /** Receive a message from the server. Queue it for the attached listeners
      *
      * @param websocket the socket
      * @param message the message that was received
@@ -115,9 +221,20 @@ public class Communicator {
     private void receive(WebSocket websocket, String message) {
         logger.info("Received: " + message);
 
-        for(CommunicationsListener handler : handlers) {
-            handler.receiveCommunication(message);
+        if(recorder != null) {
+            recorder.recordInbound(message);
         }
+        telemetry.recordReceived(message);
+        PerformanceCounters.messageIn();
+        inbound.submit(message);
+    }
+
+    /**
+     * Handle a message as if it had been received from the server, such as a frame from a replayed capture
+     * @param message the message
+     */
+    public void inject(String message) {
+        receive(ws, message);
     }
 
 }
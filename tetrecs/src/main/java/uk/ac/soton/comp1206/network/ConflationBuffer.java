@@ -0,0 +1,71 @@
+package uk.ac.soton.comp1206.network;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * A ConflationBuffer holds only the latest value for each key between drains.
+ *
+ * Offering a value for a key which already has one waiting replaces it, so obsolete updates are dropped before
+ * anything is done with them. Draining hands each key's newest value over once, in the order the keys first arrived,
+ * so the work done per drain is bounded by the number of keys rather than the number of updates.
+ *
+ * This is not thread safe, and is intended to be used on the JavaFX thread.
+ *
+ * @param <K> the key, such as a player name
+ * @param <V> the value, such as an unparsed message
+ */
+public class ConflationBuffer<K, V> {
+
+    /**
+     * The newest value waiting for each key
+     */
+    private final LinkedHashMap<K, V> latest = new LinkedHashMap<>();
+
+    /**
+     * Total number of values replaced before they were drained
+     */
+    private long dropped = 0;
+
+    /**
+     * Offer a new value for a key, replacing any value which has not been drained yet
+     * @param key the key
+     * @param value the newest value
+     */
+    public void offer(K key, V value) {
+        if(latest.put(key, value) != null) {
+            dropped++;
+        }
+    }
+
+    /**
+     * Hand the newest value of every waiting key to the consumer, then empty the buffer
+     * @param consumer called once per key
+     */
+    public void drain(BiConsumer<K, V> consumer) {
+        if(latest.isEmpty()) {
+            return;
+        }
+        for(Map.Entry<K, V> entry : latest.entrySet()) {
+            consumer.accept(entry.getKey(), entry.getValue());
+        }
+        latest.clear();
+    }
+
+    /**
+     * Whether there is anything waiting to be drained
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return latest.isEmpty();
+    }
+
+    /**
+     * Get the total number of values which were replaced before being drained
+     * @return dropped update count
+     */
+    public long getDropped() {
+        return dropped;
+    }
+}
@@ -0,0 +1,178 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.event.CommunicationsListener;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The InboundPipeline carries messages from the web socket thread to the JavaFX thread.
+ *
+ * Messages are queued as they arrive, and a single Platform.runLater drains everything that arrived since the last
+ * drain in one batch, instead of scheduling one runnable per message per listener. Listeners are held in a
+ * copy-on-write list, so they can be added and cleared on the JavaFX thread while a message is being received.
+ *
+ * Messages are queued by MessagePriority. Each drain delivers every gameplay message before any chat, and only a
+ * limited number of chat messages, so a chat flood cannot delay the handling of pieces and boards. At most
+ * MAX_CHAT_QUEUED chat messages wait at once; beyond that the oldest are dropped, so a flood can't grow the queue
+ * without limit.
+ */
+public class InboundPipeline {
+
+    private static final Logger logger = LogManager.getLogger(InboundPipeline.class);
+
+    /**
+     * Listeners which are sent every message, on the JavaFX thread
+     */
+    private final List<CommunicationsListener> handlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Listeners for shared services which outlive scenes, not removed by clearListeners
+     */
+    private final List<CommunicationsListener> persistentHandlers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Most chat messages delivered in a single drain, the rest wait for the next drain
+     */
+    private static final int MAX_CHAT_PER_DRAIN = 16;
+
+    /**
+     * Most chat messages waiting to be delivered, the oldest are dropped beyond this
+     */
+    private static final int MAX_CHAT_QUEUED = 64;
+
+    /**
+     * Gameplay messages waiting to be delivered
+     */
+    private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Chat messages waiting to be delivered
+     */
+    private final Queue<String> pendingChat = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Number of chat messages waiting, kept alongside the queue as counting it walks every message
+     */
+    private final AtomicInteger chatQueued = new AtomicInteger(0);
+
+    /**
+     * Whether a drain has already been scheduled on the JavaFX thread
+     */
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    /**
+     * Queue a message for delivery, scheduling a drain if one is not already waiting. Safe to call from any thread.
+     * @param message the message that was received
+     */
+    public void submit(String message) {
+        if(MessagePriority.of(message) == MessagePriority.CHAT) {
+            pendingChat.add(message);
+            if(chatQueued.incrementAndGet() > MAX_CHAT_QUEUED) {
+                String dropped = pendingChat.poll();
+                if(dropped != null) {
+                    chatQueued.decrementAndGet();
+                    logger.warn("Inbound chat full, dropping: " + dropped);
+                }
+            }
+        } else {
+            pending.add(message);
+        }
+        scheduleDrain();
+    }
+
+    /**
+     * Schedule a drain on the JavaFX thread, unless one is already waiting
+     */
+    private void scheduleDrain() {
+        if(drainScheduled.compareAndSet(false, true)) {
+            PerformanceCounters.runLater(this::drain);
+        }
+    }
+
+    /**
+     * Deliver every pending gameplay message, then a limited number of chat messages, to every listener. Runs on the
+     * JavaFX thread.
+     */
+    protected void drain() {
+        //Clear the flag first, so a message arriving mid-drain schedules the next batch
+        drainScheduled.set(false);
+        String message;
+        while((message = pending.poll()) != null) {
+            deliver(message);
+        }
+        int chat = 0;
+        while(chat < MAX_CHAT_PER_DRAIN && (message = pendingChat.poll()) != null) {
+            chatQueued.decrementAndGet();
+            deliver(message);
+            chat++;
+        }
+        if(!pendingChat.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+
+    /**
+     * Send a single message to all current listeners. A failing listener does not stop the rest of the batch.
+     * @param message the message to deliver
+     */
+    protected void deliver(String message) {
+        //Shared services first, so scenes see their updated state
+        deliver(persistentHandlers, message);
+        deliver(handlers, message);
+    }
+
+    /**
+     * Send a single message to a list of listeners, catching failures
+     * @param listeners the listeners
+     * @param message the message to deliver
+     */
+    private void deliver(List<CommunicationsListener> listeners, String message) {
+        for(CommunicationsListener handler : listeners) {
+            try {
+                handler.receiveCommunication(message);
+            } catch (Exception e) {
+                e.printStackTrace();
+                logger.error("Listener failed handling message: " + message);
+            }
+        }
+    }
+
+    /**
+     * Add a new listener to receive messages
+     * @param listener the listener to add
+     */
+    public void addListener(CommunicationsListener listener) {
+        handlers.add(listener);
+    }
+
+    /**
+     * Add a listener which is kept when the other listeners are cleared
+     * @param listener the listener to add
+     */
+    public void addPersistentListener(CommunicationsListener listener) {
+        persistentHandlers.add(listener);
+    }
+
+    /**
+     * Clear all current listeners, except persistent ones
+     */
+    public void clearListeners() {
+        handlers.clear();
+    }
+
+    /**
+     * Get the number of messages waiting to be delivered
+     * @return pending message count
+     */
+    public int getPendingCount() {
+        return pending.size() + chatQueued.get();
+    }
+}
@@ -0,0 +1,29 @@
+package uk.ac.soton.comp1206.network;
+
+/**
+ * The priority class of a protocol message. Gameplay messages are always sent and handled before chat.
+ */
+public enum MessagePriority {
+
+    /**
+     * Anything needed to play or manage a game, such as PIECE, BOARD, SCORE and JOIN
+     */
+    GAMEPLAY,
+
+    /**
+     * Chat messages (MSG), which can be delayed and rate limited
+     */
+    CHAT;
+
+    /**
+     * Work out the priority class of a message from its command
+     * @param message the message
+     * @return the priority class
+     */
+    public static MessagePriority of(String message) {
+        if(message.startsWith("MSG") && (message.length() == 3 || message.charAt(3) == ' ')) {
+            return CHAT;
+        }
+        return GAMEPLAY;
+    }
+}
@@ -0,0 +1,495 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * NetworkTelemetry records what is happening on the Communicator's link to the server.
+ *
+ * It counts messages and bytes per command in each direction, works out per second rates once a second, measures
+ * round trip time from web socket ping/pong frames and from request/response pairs such as PIECE, and tracks how many
+ * messages are queued inbound and outbound. While started, a summary is periodically appended to a local file, and
+ * it can be shown in game with a TelemetryOverlay.
+ *
+ * Counting is always on, but the timer which works out rates and dumps to the file only runs between start and stop,
+ * which the MultiplayerScene calls as it is entered and left. Once the file grows past a limit it is moved aside to
+ * telemetry.log.1, so at most two files are kept.
+ */
+public class NetworkTelemetry {
+
+    private static final Logger logger = LogManager.getLogger(NetworkTelemetry.class);
+
+    /**
+     * The file telemetry is dumped to
+     */
+    public static final String DUMP_FILE = "telemetry.log";
+
+    /**
+     * Size the telemetry file may grow to before it is rotated, in bytes. Can be changed with -Dtetrecs.telemetry.max
+     */
+    public static final long MAX_DUMP_SIZE = Long.getLong("tetrecs.telemetry.max", 1024 * 1024);
+
+    /**
+     * Seconds between each dump to the file
+     */
+    private static final int DUMP_INTERVAL = 10;
+
+    /**
+     * Longest a request waits for its answer before it is assumed lost, in nanoseconds
+     */
+    private static final long RESPONSE_TIMEOUT = 10_000_000_000L;
+
+    /**
+     * Most requests of each kind waiting for an answer; the oldest are dropped beyond this
+     */
+    private static final int MAX_AWAITING = 32;
+
+    /**
+     * Weight given to each new round trip sample in the moving average
+     */
+    private static final double SMOOTHING = 0.2;
+
+    /**
+     * Requests which the server answers in order, mapped to the command of the answer
+     */
+    private static final Map<String, String> RESPONSES = Map.of(
+            "PIECE", "PIECE",
+            "HISCORES", "HISCORES",
+            "LIST", "CHANNELS"
+    );
+
+    /**
+     * Message and byte counts for a single command in a single direction
+     */
+    public static class CommandStats {
+        private final LongAdder messages = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private long lastMessages = 0;
+        private long lastBytes = 0;
+        private volatile double messageRate = 0;
+        private volatile double byteRate = 0;
+
+        private void record(int size) {
+            messages.increment();
+            bytes.add(size);
+        }
+
+        private void tick(double seconds) {
+            long totalMessages = messages.sum();
+            long totalBytes = bytes.sum();
+            messageRate = (totalMessages - lastMessages) / seconds;
+            byteRate = (totalBytes - lastBytes) / seconds;
+            lastMessages = totalMessages;
+            lastBytes = totalBytes;
+        }
+
+        /**
+         * Get the number of messages of this command so far
+         * @return message count
+         */
+        public long getMessages() {
+            return messages.sum();
+        }
+
+        /**
+         * Get the number of bytes of this command so far
+         * @return byte count
+         */
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        /**
+         * Get the messages per second over the last second
+         * @return message rate
+         */
+        public double getMessageRate() {
+            return messageRate;
+        }
+
+        /**
+         * Get the bytes per second over the last second
+         * @return byte rate
+         */
+        public double getByteRate() {
+            return byteRate;
+        }
+    }
+
+    /**
+     * Inbound stats per command
+     */
+    private final Map<String, CommandStats> inbound = new ConcurrentHashMap<>();
+
+    /**
+     * Outbound stats per command
+     */
+    private final Map<String, CommandStats> outbound = new ConcurrentHashMap<>();
+
+    /**
+     * Send times of requests waiting for an answer, keyed by the command of the answer
+     */
+    private final Map<String, Queue<Long>> awaiting = new ConcurrentHashMap<>();
+
+    /**
+     * Smoothed round trip times in nanoseconds, keyed by where they were measured ("PING", "PIECE", ...)
+     */
+    private final Map<String, Double> roundTripTimes = new ConcurrentHashMap<>();
+
+    /**
+     * Send time of the last ping frame, or 0 if no pong is expected
+     */
+    private final AtomicLong pingSent = new AtomicLong(0);
+
+    /**
+     * Messages handed to the web socket which have not yet been written
+     */
+    private final AtomicInteger wireQueued = new AtomicInteger(0);
+
+    /**
+     * Reports how many received messages are waiting to be handled
+     */
+    private IntSupplier inboundQueued = () -> 0;
+
+    /**
+     * Reports how many messages are waiting to be handed to the web socket
+     */
+    private IntSupplier outboundQueued = () -> 0;
+
+    /**
+     * Runs the once a second tick and the periodic dump
+     */
+    private ScheduledExecutorService executor;
+
+    private long lastTick = System.nanoTime();
+    private int ticks = 0;
+
+    /**
+     * Set what reports the inbound queue depth
+     * @param inboundQueued supplier of the inbound queue depth
+     */
+    public void setInboundQueue(IntSupplier inboundQueued) {
+        this.inboundQueued = inboundQueued;
+    }
+
+    /**
+     * Set what reports the outbound queue depth, before messages reach the web socket
+     * @param outboundQueued supplier of the outbound queue depth
+     */
+    public void setOutboundQueue(IntSupplier outboundQueued) {
+        this.outboundQueued = outboundQueued;
+    }
+
+    /**
+     * Start working out rates every second and dumping to the telemetry file, if not already started
+     * @param pinger called every dump interval to send a ping frame
+     */
+    public synchronized void start(Runnable pinger) {
+        if(executor != null) {
+            return;
+        }
+        lastTick = System.nanoTime();
+        ticks = 0;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Network-Telemetry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> {
+            try {
+                tick();
+                if(++ticks % DUMP_INTERVAL == 0) {
+                    dump();
+                    pinger.run();
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                logger.error("Telemetry tick failed");
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the telemetry thread and forget requests waiting for an answer. Messages are still counted, but rates are
+     * no longer worked out or dumped.
+     */
+    public synchronized void stop() {
+        if(executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        awaiting.clear();
+    }
+
+    /**
+     * Drop requests which have waited longer than RESPONSE_TIMEOUT, so a lost answer doesn't pair every later answer
+     * with the wrong request
+     * @param sent send times of requests waiting for an answer, oldest first
+     * @param now the current time
+     */
+    private void expire(Queue<Long> sent, long now) {
+        Long oldest;
+        while((oldest = sent.peek()) != null && now - oldest > RESPONSE_TIMEOUT) {
+            sent.poll();
+        }
+    }
+
+    /**
+     * Record a message handed to the web socket to be sent
+     * @param message the message
+     */
+    public void recordSent(String message) {
+        String command = command(message);
+        outbound.computeIfAbsent(command, c -> new CommandStats()).record(byteLength(message));
+        wireQueued.incrementAndGet();
+        String response = RESPONSES.get(command);
+        if(response != null) {
+            Queue<Long> sent = awaiting.computeIfAbsent(response, c -> new ConcurrentLinkedQueue<>());
+            sent.add(System.nanoTime());
+            while(sent.size() > MAX_AWAITING) {
+                sent.poll();
+            }
+        }
+    }
+
+    /**
+     * Record that the web socket has written a queued text frame
+     */
+    public void recordWritten() {
+        wireQueued.updateAndGet(queued -> Math.max(0, queued - 1));
+    }
+
+    /**
+     * Record a message received from the server
+     * @param message the message
+     */
+    public void recordReceived(String message) {
+        String command = command(message);
+        inbound.computeIfAbsent(command, c -> new CommandStats()).record(byteLength(message));
+        Queue<Long> sent = awaiting.get(command);
+        if(sent != null) {
+            long now = System.nanoTime();
+            expire(sent, now);
+            Long time = sent.poll();
+            if(time != null) {
+                recordRoundTrip(command, now - time);
+            }
+        }
+    }
+
+    /**
+     * Record that a ping frame has been sent
+     */
+    public void recordPing() {
+        pingSent.set(System.nanoTime());
+    }
+
+    /**
+     * Record that a pong frame has been received, measuring the round trip from the last ping
+     */
+    public void recordPong() {
+        long sent = pingSent.getAndSet(0);
+        if(sent != 0) {
+            recordRoundTrip("PING", System.nanoTime() - sent);
+        }
+    }
+
+    /**
+     * Add a round trip sample to the moving average for its source
+     * @param source where the sample was measured
+     * @param nanos the round trip in nanoseconds
+     */
+    private void recordRoundTrip(String source, long nanos) {
+        roundTripTimes.merge(source, (double) nanos, (old, sample) -> old + SMOOTHING * (sample - old));
+    }
+
+    /**
+     * Work out per second rates since the last tick
+     */
+    protected void tick() {
+        long now = System.nanoTime();
+        double seconds = (now - lastTick) / 1_000_000_000.0;
+        lastTick = now;
+        if(seconds <= 0) {
+            return;
+        }
+        for(CommandStats stats : inbound.values()) {
+            stats.tick(seconds);
+        }
+        for(CommandStats stats : outbound.values()) {
+            stats.tick(seconds);
+        }
+        for(Queue<Long> sent : awaiting.values()) {
+            expire(sent, now);
+        }
+    }
+
+    /**
+     * Append the current summary to the telemetry file, rotating it first if it has grown too big
+     */
+    protected void dump() {
+        try {
+            rotate();
+            BufferedWriter writer = new BufferedWriter(new FileWriter(DUMP_FILE, true));
+            writer.write("=== " + LocalDateTime.now() + " ===\n");
+            writer.write(summary());
+            writer.write("\n");
+            writer.close();
+        } catch (Exception e) {
+            e.printStackTrace();
+            logger.error("Unable to write telemetry file");
+        }
+    }
+
+    /**
+     * Move the telemetry file aside to telemetry.log.1 once it is bigger than MAX_DUMP_SIZE, replacing the last one
+     * @throws IOException if the file can't be moved
+     */
+    private void rotate() throws IOException {
+        Path file = Paths.get(DUMP_FILE);
+        if(Files.exists(file) && Files.size(file) > MAX_DUMP_SIZE) {
+            Files.move(file, Paths.get(DUMP_FILE + ".1"), StandardCopyOption.REPLACE_EXISTING);
+            logger.info("Rotated " + DUMP_FILE);
+        }
+    }
+
+    /**
+     * Build a readable summary of round trip times, queue depths and per command rates
+     * @return the summary, one item per line
+     */
+    public String summary() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("RTT");
+        if(roundTripTimes.isEmpty()) {
+            builder.append(" -");
+        }
+        for(Map.Entry<String, Double> entry : new TreeMap<>(roundTripTimes).entrySet()) {
+            builder.append(String.format(" %s %.1fms", entry.getKey(), entry.getValue() / 1_000_000.0));
+        }
+        builder.append(String.format("%nQueued in %d out %d%n", getInboundQueued(), getOutboundQueued()));
+        appendRates(builder, "IN ", inbound);
+        appendRates(builder, "OUT", outbound);
+        return builder.toString();
+    }
+
+    /**
+     * Append a line per command with its message and byte rates
+     * @param builder summary being built
+     * @param direction label for the direction
+     * @param stats stats of each command
+     */
+    private void appendRates(StringBuilder builder, String direction, Map<String, CommandStats> stats) {
+        for(Map.Entry<String, CommandStats> entry : new TreeMap<>(stats).entrySet()) {
+            CommandStats command = entry.getValue();
+            builder.append(String.format("%s %-9s %5.1f msg/s %7.0f B/s (%d msgs)%n", direction, entry.getKey(),
+                    command.getMessageRate(), command.getByteRate(), command.getMessages()));
+        }
+    }
+
+    /**
+     * Get the stats of each inbound command
+     * @return inbound stats, keyed by command
+     */
+    public Map<String, CommandStats> getInbound() {
+        return inbound;
+    }
+
+    /**
+     * Get the stats of each outbound command
+     * @return outbound stats, keyed by command
+     */
+    public Map<String, CommandStats> getOutbound() {
+        return outbound;
+    }
+
+    /**
+     * Get the smoothed round trip time measured from a given source
+     * @param source "PING", or the answering command such as "PIECE"
+     * @return round trip time in milliseconds, or -1 if not measured yet
+     */
+    public double getRoundTripMillis(String source) {
+        Double nanos = roundTripTimes.get(source);
+        return nanos == null ? -1 : nanos / 1_000_000.0;
+    }
+
+    /**
+     * Get the number of received messages waiting to be handled
+     * @return inbound queue depth
+     */
+    public int getInboundQueued() {
+        return inboundQueued.getAsInt();
+    }
+
+    /**
+     * Get the number of messages waiting to be sent, both queued by priority and handed to the web socket
+     * @return outbound queue depth
+     */
+    public int getOutboundQueued() {
+        return outboundQueued.getAsInt() + wireQueued.get();
+    }
+
+    /**
+     * Get the number of messages handed to the web socket which have not yet been written
+     * @return web socket queue depth
+     */
+    public int getWireQueued() {
+        return wireQueued.get();
+    }
+
+    /**
+     * Get the command of a message - the text before the first space or new line
+     * @param message the message
+     * @return the command
+     */
+    public static String command(String message) {
+        int end = 0;
+        while(end < message.length() && message.charAt(end) != ' ' && message.charAt(end) != '\n') {
+            end++;
+        }
+        return message.substring(0, end);
+    }
+
+    /**
+     * Work out the UTF-8 encoded length of a message without encoding it
+     * @param message the message
+     * @return length in bytes
+     */
+    private static int byteLength(String message) {
+        int bytes = 0;
+        for(int i = 0; i < message.length(); i++) {
+            char c = message.charAt(i);
+            if(c < 0x80) {
+                bytes += 1;
+            } else if(c < 0x800) {
+                bytes += 2;
+            } else if(Character.isHighSurrogate(c)) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,188 @@
+package uk.ac.soton.comp1206.network;
+
+import javafx.beans.property.ReadOnlyObjectProperty;
+import javafx.beans.property.SimpleObjectProperty;
+import javafx.util.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.scores.ScoreLog;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The OnlineLeaderboard caches the server's high scores, shared by every scene.
+ *
+ * A snapshot of the scores is kept with the time it was fetched. Until it is older than the time-to-live, asking for
+ * the leaderboard costs no round trip. Once it is stale the old snapshot is still shown while a fresh one is fetched
+ * in the background. The lowest score on the board is worked out once per snapshot, so deciding whether a score
+ * should be submitted doesn't re-parse anything. Scores we submit are merged into the snapshot when the server accepts
+ * them.
+ *
+ * All methods are called on the JavaFX thread; the leaderboard listens with a persistent communicator listener, so it
+ * keeps receiving replies across scene changes.
+ */
+public class OnlineLeaderboard {
+
+    private static final Logger logger = LogManager.getLogger(OnlineLeaderboard.class);
+
+    /**
+     * How long a snapshot stays fresh, can be changed with -Dtetrecs.hiscores.ttl (milliseconds)
+     */
+    public static final long TTL = Long.getLong("tetrecs.hiscores.ttl", 60000);
+
+    /**
+     * How long to wait for a reply before asking again
+     */
+    private static final long REQUEST_TIMEOUT = 10000;
+
+    /**
+     * Number of scores on a full board
+     */
+    public static final int SIZE = 10;
+
+    /**
+     * Communicator used to ask for scores
+     */
+    private final Communicator communicator;
+
+    /**
+     * The latest scores, best first, or null before the first reply
+     */
+    private final SimpleObjectProperty<List<Pair<String, Integer>>> snapshot = new SimpleObjectProperty<>();
+
+    /**
+     * When the snapshot was fetched
+     */
+    private long fetchedAt;
+
+    /**
+     * When scores were last asked for, or 0 if no request is waiting
+     */
+    private long requestedAt;
+
+    /**
+     * Lowest score on a full board; anything at or below it would not make the board
+     */
+    private int threshold = Integer.MIN_VALUE;
+
+    /**
+     * Create a new leaderboard cache
+     * @param communicator communicator used to ask for scores
+     */
+    public OnlineLeaderboard(Communicator communicator) {
+        this.communicator = communicator;
+        communicator.addPersistentListener(message -> receive(message.trim()));
+    }
+
+    /**
+     * Get the latest scores. Replaced with a new list whenever scores arrive.
+     * @return the snapshot property, holding null until the first reply
+     */
+    public ReadOnlyObjectProperty<List<Pair<String, Integer>>> snapshotProperty() {
+        return snapshot;
+    }
+
+    /**
+     * Get the latest scores
+     * @return scores best first, or null if none have arrived yet
+     */
+    public List<Pair<String, Integer>> getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Whether the snapshot is younger than the time-to-live
+     * @return true if the snapshot can be used without asking the server
+     */
+    public boolean isFresh() {
+        return snapshot.get() != null && System.currentTimeMillis() - fetchedAt < TTL;
+    }
+
+    /**
+     * Ask the server for scores if the snapshot is missing or stale and no request is already waiting
+     */
+    public void refreshIfStale() {
+        if(isFresh()) {
+            logger.debug("Online scores are fresh, not asking the server");
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if(requestedAt != 0 && now - requestedAt < REQUEST_TIMEOUT) {
+            return;
+        }
+        requestedAt = now;
+        communicator.send("HISCORES");
+    }
+
+    /**
+     * Whether a score would make the board, using the threshold of the latest snapshot
+     * @param score the score
+     * @return true if the score is better than the lowest score on a full board
+     */
+    public boolean qualifies(int score) {
+        return snapshot.get() != null && score > threshold;
+    }
+
+    /**
+     * Submit a score to the server
+     * @param name name of the player
+     * @param score score achieved
+     */
+    public void submit(String name, int score) {
+        communicator.send("HISCORE " + name + ":" + score);
+    }
+
+    /**
+     * Handle replies from the server
+     * @param message message received
+     */
+    protected void receive(String message) {
+        if(message.startsWith("HISCORES")) {
+            update(parse(message.substring("HISCORES".length())));
+            fetchedAt = System.currentTimeMillis();
+            requestedAt = 0;
+        } else if(message.startsWith("NEWSCORE")) {
+            //Merge our accepted score instead of fetching the whole board again
+            var accepted = parse(message.substring("NEWSCORE".length()));
+            if(snapshot.get() != null && !accepted.isEmpty()) {
+                var scores = new ArrayList<>(snapshot.get());
+                int size = Math.max(SIZE, scores.size());
+                scores.add(accepted.get(0));
+                scores.sort(ScoreLog.BEST_FIRST);
+                update(scores.size() > size ? new ArrayList<>(scores.subList(0, size)) : scores);
+            }
+        }
+    }
+
+    /**
+     * Replace the snapshot and work out the threshold
+     * @param scores scores, best first
+     */
+    private void update(List<Pair<String, Integer>> scores) {
+        threshold = scores.size() < SIZE ? Integer.MIN_VALUE : scores.get(scores.size() - 1).getValue();
+        snapshot.set(Collections.unmodifiableList(scores));
+    }
+
+    /**
+     * Parse name:score lines, skipping any which are malformed
+     * @param body the lines
+     * @return the scores in the order given
+     */
+    private List<Pair<String, Integer>> parse(String body) {
+        var scores = new ArrayList<Pair<String, Integer>>();
+        for(String line : body.trim().split("\n")) {
+            int split = line.lastIndexOf(':');
+            if(split < 0) {
+                continue;
+            }
+            try {
+                scores.add(new Pair<>(line.substring(0, split).trim(), Integer.parseInt(line.substring(split + 1).trim())));
+            } catch (NumberFormatException e) {
+                logger.error("Skipping bad online score: " + line);
+            }
+        }
+        return scores;
+    }
+}
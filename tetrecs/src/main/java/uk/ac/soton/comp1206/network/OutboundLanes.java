@@ -0,0 +1,167 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * OutboundLanes queues messages to be sent to the server in two lanes, one per MessagePriority.
+ *
+ * A single sender thread always empties the gameplay lane before taking anything from the chat lane, so a burst of
+ * chat can never hold up a PIECE, BOARD or SCORE. When the link backs up, chat is paced by a token bucket, and chat
+ * beyond the lane's limit is dropped.
+ */
+public class OutboundLanes {
+
+    private static final Logger logger = LogManager.getLogger(OutboundLanes.class);
+
+    /**
+     * Most chat messages held in the chat lane, further chat is dropped
+     */
+    private static final int MAX_CHAT_QUEUED = 32;
+
+    /**
+     * Chat lane length above which chat is rate limited
+     */
+    private static final int CHAT_BACKLOG = 4;
+
+    /**
+     * Messages waiting to be written to the socket above which chat is rate limited
+     */
+    private static final int WIRE_BACKLOG = 8;
+
+    /**
+     * Chat messages per second allowed while rate limited
+     */
+    private static final double CHAT_RATE = 2;
+
+    /**
+     * Chat messages which can be sent in a burst while rate limited
+     */
+    private static final double CHAT_BURST = 5;
+
+    private final ArrayDeque<String> gameplay = new ArrayDeque<>();
+    private final ArrayDeque<String> chat = new ArrayDeque<>();
+
+    /**
+     * Writes a message to the socket
+     */
+    private final Consumer<String> writer;
+
+    /**
+     * Reports how many written messages are still waiting to go out on the socket
+     */
+    private final IntSupplier wireBacklog;
+
+    /**
+     * Chat token bucket
+     */
+    private double tokens = CHAT_BURST;
+    private long lastRefill = System.nanoTime();
+
+    /**
+     * Create the lanes and start the sender thread
+     * @param writer writes a message to the socket
+     * @param wireBacklog reports how many messages are waiting to go out on the socket
+     */
+    public OutboundLanes(Consumer<String> writer, IntSupplier wireBacklog) {
+        this.writer = writer;
+        this.wireBacklog = wireBacklog;
+
+        Thread thread = new Thread(this::run, "Communicator-Outbound");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queue a message in the lane for its priority
+     * @param message the message to send
+     */
+    public synchronized void submit(String message) {
+        if(MessagePriority.of(message) == MessagePriority.CHAT) {
+            if(chat.size() >= MAX_CHAT_QUEUED) {
+                logger.warn("Chat lane full, dropping: " + message);
+                return;
+            }
+            chat.add(message);
+        } else {
+            gameplay.add(message);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Send messages until the thread is interrupted
+     */
+    private void run() {
+        try {
+            while(true) {
+                String message = take();
+                try {
+                    writer.accept(message);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    logger.error("Unable to send: " + message);
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.info("Outbound sender stopped");
+        }
+    }
+
+    /**
+     * Wait for the next message to send: any gameplay message first, then chat if the rate limit allows
+     * @return the next message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private synchronized String take() throws InterruptedException {
+        while(true) {
+            refill();
+            if(!gameplay.isEmpty()) {
+                return gameplay.poll();
+            }
+            if(!chat.isEmpty()) {
+                if(!isBackedUp()) {
+                    return chat.poll();
+                }
+                if(tokens >= 1) {
+                    tokens -= 1;
+                    return chat.poll();
+                }
+                //Wait until the next token, unless gameplay arrives first
+                long waitMillis = (long) Math.ceil((1 - tokens) / CHAT_RATE * 1000);
+                wait(Math.max(1, waitMillis));
+            } else {
+                wait();
+            }
+        }
+    }
+
+    /**
+     * Whether the link is backed up, so chat should be rate limited
+     * @return true if backed up
+     */
+    private boolean isBackedUp() {
+        return chat.size() > CHAT_BACKLOG || wireBacklog.getAsInt() > WIRE_BACKLOG;
+    }
+
+    /**
+     * Add the tokens earned since the last refill
+     */
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(CHAT_BURST, tokens + (now - lastRefill) / 1_000_000_000.0 * CHAT_RATE);
+        lastRefill = now;
+    }
+
+    /**
+     * Get the number of messages waiting in both lanes
+     * @return queued message count
+     */
+    public synchronized int getQueued() {
+        return gameplay.size() + chat.size();
+    }
+}
@@ -0,0 +1,144 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The ProtocolRecorder writes every frame sent or received by the Communicator to a compact capture file, so a
+ * session can be replayed later with the ProtocolReplayer.
+ *
+ * The file starts with a header (magic "TCAP", a version byte and the wall clock start time). Each frame is then
+ * appended as: a direction byte, the nanoseconds since the previous frame as a variable length number, the length of
+ * the message as a variable length number, and the UTF-8 bytes of the message.
+ */
+public class ProtocolRecorder {
+
+    private static final Logger logger = LogManager.getLogger(ProtocolRecorder.class);
+
+    /**
+     * Magic bytes at the start of every capture
+     */
+    public static final int MAGIC = 0x54434150; //"TCAP"
+
+    /**
+     * Version of the capture format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Direction byte for a frame received from the server
+     */
+    public static final int INBOUND = 0;
+
+    /**
+     * Direction byte for a frame sent to the server
+     */
+    public static final int OUTBOUND = 1;
+
+    /**
+     * The capture file
+     */
+    private final DataOutputStream output;
+
+    /**
+     * Time of the previous frame, in nanoseconds
+     */
+    private long lastFrame;
+
+    /**
+     * Whether the recorder has been closed
+     */
+    private boolean closed = false;
+
+    /**
+     * Create a new capture file, replacing any existing file at that path
+     * @param path path of the capture file
+     * @throws IOException if the file cannot be created
+     */
+    public ProtocolRecorder(String path) throws IOException {
+        output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path)));
+        output.writeInt(MAGIC);
+        output.writeByte(VERSION);
+        output.writeLong(System.currentTimeMillis());
+        lastFrame = System.nanoTime();
+
+        //Make sure buffered frames reach the disk when the game exits
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close, "Protocol-Recorder-Close"));
+        logger.info("Capturing protocol to " + path);
+    }
+
+    /**
+     * Record a frame received from the server
+     * @param message the message
+     */
+    public void recordInbound(String message) {
+        record(INBOUND, message);
+    }
+
+    /**
+     * Record a frame sent to the server
+     * @param message the message
+     */
+    public void recordOutbound(String message) {
+        record(OUTBOUND, message);
+    }
+
+    /**
+     * Append a frame to the capture
+     * @param direction INBOUND or OUTBOUND
+     * @param message the message
+     */
+    private synchronized void record(int direction, String message) {
+        if(closed) {
+            return;
+        }
+        long now = System.nanoTime();
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        try {
+            output.writeByte(direction);
+            writeVarLong(now - lastFrame);
+            writeVarLong(bytes.length);
+            output.write(bytes);
+            lastFrame = now;
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to write to capture, stopping capture");
+            close();
+        }
+    }
+
+    /**
+     * Write a non-negative number using 7 bits per byte, with the top bit set on every byte but the last
+     * @param value the number
+     * @throws IOException if the write fails
+     */
+    private void writeVarLong(long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            output.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    /**
+     * Flush and close the capture file
+     */
+    public synchronized void close() {
+        if(closed) {
+            return;
+        }
+        closed = true;
+        try {
+            output.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to close capture");
+        }
+    }
+}
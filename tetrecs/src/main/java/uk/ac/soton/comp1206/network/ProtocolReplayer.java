@@ -0,0 +1,191 @@
+package uk.ac.soton.comp1206.network;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * The ProtocolReplayer reads a capture written by the ProtocolRecorder and feeds the received frames back into a
+ * Communicator, as if they had come from the server. Frames that were sent are skipped.
+ *
+ * Frames can be replayed with their original timing, scaled by a speed factor, or as fast as possible (speed 0) to
+ * benchmark the parsing and rendering of the scenes listening to the Communicator. The time logged at the end runs
+ * until the JavaFX thread has handled the last frame.
+ *
+ * A START frame makes the lobby load the MultiplayerScene, which clears the listeners and only adds its own once it
+ * has initialised. After injecting START the replay waits for the GameWindow to report the next scene ready, so the
+ * frames that follow reach the game instead of being dropped in between.
+ */
+public class ProtocolReplayer {
+
+    private static final Logger logger = LogManager.getLogger(ProtocolReplayer.class);
+
+    /**
+     * Path of the capture file
+     */
+    private final String path;
+
+    /**
+     * Playback speed, where 1 is real time and 0 is as fast as possible
+     */
+    private final double speed;
+
+    /**
+     * Longest to wait for the next scene after a START frame, in milliseconds
+     */
+    private static final long SCENE_TIMEOUT = 5000;
+
+    /**
+     * The thread doing the replay, if started
+     */
+    private Thread thread;
+
+    /**
+     * Create a new replayer for the given capture
+     * @param path path of the capture file
+     * @param speed playback speed, where 1 is real time and 0 is as fast as possible
+     */
+    public ProtocolReplayer(String path, double speed) {
+        this.path = path;
+        this.speed = speed;
+    }
+
+    /**
+     * Start replaying into the given Communicator on a background thread
+     * @param communicator the communicator to deliver received frames through
+     * @param window the window whose scenes are listening, used to wait for a scene change after START
+     */
+    public synchronized void start(Communicator communicator, GameWindow window) {
+        if(thread != null) {
+            return;
+        }
+        thread = new Thread(() -> replay(communicator, window), "Protocol-Replayer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Whether the replay has been started
+     * @return true if started
+     */
+    public synchronized boolean isStarted() {
+        return thread != null;
+    }
+
+    /**
+     * Replay the capture, then log how long it took
+     * @param communicator the communicator to deliver received frames through
+     * @param window the window whose scenes are listening
+     */
+    protected void replay(Communicator communicator, GameWindow window) {
+        logger.info("Replaying capture " + path + " at speed " + (speed <= 0 ? "max" : speed));
+        int frames = 0;
+        long start = System.nanoTime();
+        long due = start;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+            if(input.readInt() != ProtocolRecorder.MAGIC) {
+                logger.error("Not a capture file: " + path);
+                return;
+            }
+            int version = input.readByte();
+            if(version != ProtocolRecorder.VERSION) {
+                logger.error("Unsupported capture version " + version);
+                return;
+            }
+            input.readLong(); //Wall clock start time, not needed for replay
+
+            while(true) {
+                int direction = input.read();
+                if(direction == -1) {
+                    break;
+                }
+                long gap = readVarLong(input);
+                byte[] bytes = new byte[(int) readVarLong(input)];
+                input.readFully(bytes);
+                //Every frame's gap counts towards the timing, including the sent frames which are skipped
+                if(speed > 0) {
+                    due += (long) (gap / speed);
+                }
+                if(direction != ProtocolRecorder.INBOUND) {
+                    continue;
+                }
+                if(speed > 0) {
+                    long wait = due - System.nanoTime();
+                    if(wait > 0) {
+                        Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                    }
+                }
+                String message = new String(bytes, StandardCharsets.UTF_8);
+                if(NetworkTelemetry.command(message).equals("START")) {
+                    //Hold the following frames until the game scene is listening
+                    int ready = window.getScenesReady();
+                    communicator.inject(message);
+                    if(!window.awaitSceneReady(ready, SCENE_TIMEOUT)) {
+                        logger.warn("No scene was loaded after START, carrying on");
+                    }
+                    due = System.nanoTime();
+                } else {
+                    communicator.inject(message);
+                }
+                frames++;
+            }
+        } catch (EOFException e) {
+            logger.warn("Capture ends with a truncated frame");
+        } catch (InterruptedException e) {
+            logger.info("Replay interrupted");
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to read capture " + path);
+        }
+        try {
+            awaitDelivered(communicator);
+        } catch (InterruptedException e) {
+            logger.info("Replay interrupted before every frame was handled");
+        }
+        double seconds = (System.nanoTime() - start) / 1_000_000_000.0;
+        logger.info(String.format("Replayed %d frames in %.3fs (%.0f frames/s)", frames, seconds, frames / seconds));
+    }
+
+    /**
+     * Wait until every injected frame has been handled by the listeners on the JavaFX thread, so the time taken
+     * covers parsing and rendering rather than only queueing
+     * @param communicator the communicator the frames were injected into
+     * @throws InterruptedException if interrupted while waiting
+     */
+    private void awaitDelivered(Communicator communicator) throws InterruptedException {
+        while(communicator.getTelemetry().getInboundQueued() > 0) {
+            Thread.sleep(1);
+        }
+        //The last batch may still be being delivered; anything queued after it runs once it has finished
+        var delivered = new CountDownLatch(1);
+        PerformanceCounters.runLater(delivered::countDown);
+        delivered.await();
+    }
+
+    /**
+     * Read a number written by ProtocolRecorder.writeVarLong
+     * @param input the capture
+     * @return the number
+     * @throws IOException if the read fails
+     */
+    private static long readVarLong(DataInputStream input) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = input.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+}
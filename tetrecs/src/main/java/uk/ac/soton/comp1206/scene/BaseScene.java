@@ -1,7 +1,10 @@
 package uk.ac.soton.comp1206.scene;
 
 import javafx.scene.Scene;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.paint.Color;
+import uk.ac.soton.comp1206.component.PerformanceHud;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
@@ -15,6 +18,11 @@ public abstract class BaseScene {
     protected GamePane root;
     protected Scene scene;
 
+    /**
+     * Shows frame timings and counters over the scene, toggled with F3
+     */
+    protected PerformanceHud performanceHud;
+
     /**
      * Create a new scene, passing in the GameWindow the scene will be displayed in
      * @param gameWindow the game window
@@ -34,7 +42,14 @@ public abstract class BaseScene {
     public abstract void build();
 
     /**
-     * Create a new JavaFX scene using the root contained within this scene
+     * Release anything the scene holds which would outlive it, such as timers and threads. Called when the scene is
+     * replaced; does nothing by default.
+     */
+    public void cleanup() {
+    }
+
+    /**
+     * Create a new JavaFX scene using the root contained within this scene, with the performance HUD on top
      * @return JavaFX scene
      */
     public Scene setScene() {
@@ -42,6 +57,15 @@ public abstract class BaseScene {
         Scene scene = new Scene(root, previous.getWidth(), previous.getHeight(), Color.BLACK);
         scene.getStylesheets().add(getClass().getResource("/style/game.css").toExternalForm());
         this.scene = scene;
+
+        //A filter sees F3 before any scene's own key handler
+        performanceHud = new PerformanceHud(scene);
+        root.getChildren().add(performanceHud);
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, keyEvent -> {
+            if(keyEvent.getCode() == KeyCode.F3) {
+                performanceHud.toggle();
+            }
+        });
         return scene;
     }
 
@@ -3,7 +3,9 @@ package uk.ac.soton.comp1206.scene;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
 import javafx.animation.Timeline;
+import javafx.application.Platform;
 import javafx.beans.property.SimpleIntegerProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
 import javafx.geometry.Pos;
 import javafx.scene.input.KeyCode;
@@ -13,24 +15,22 @@ import javafx.scene.paint.Color;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.text.Text;
 import javafx.util.Duration;
-import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
 import uk.ac.soton.comp1206.media.Multimedia;
+import uk.ac.soton.comp1206.component.CanvasGameBoard;
 import uk.ac.soton.comp1206.component.GameBlock;
 import uk.ac.soton.comp1206.component.GameBlockCoordinate;
 import uk.ac.soton.comp1206.component.GameBoard;
 import uk.ac.soton.comp1206.game.Game;
 import uk.ac.soton.comp1206.game.GamePiece;
+import uk.ac.soton.comp1206.game.PlacementMap;
+import uk.ac.soton.comp1206.scores.HighScoreService;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileReader;
-import java.util.ArrayList;
-import java.util.Scanner;
 import java.util.Set;
 
 /**
@@ -58,9 +58,14 @@ public class ChallengeScene extends BaseScene {
     protected GameBoard followingPieceBoard;
 
     /**
-     * The GameBoard for the game
+     * The GameBoard for the game, drawn onto a single canvas
      */
-    protected GameBoard board;
+    protected CanvasGameBoard board;
+
+    /**
+     * Where the current piece can be placed, used for the ghost preview on the board
+     */
+    protected PlacementMap placements;
 
     /**
      * The x coordinate of where a block will be placed
@@ -77,6 +82,16 @@ public class ChallengeScene extends BaseScene {
      */
     public SimpleIntegerProperty highScoreValue = new SimpleIntegerProperty(0);
 
+    /**
+     * Holds the best local score in memory
+     */
+    protected HighScoreService highScores = HighScoreService.getInstance();
+
+    /**
+     * Updates the highscore when the score or the best local score changes
+     */
+    protected ChangeListener<Number> highScoreListener = this::getHighScore;
+
     /**
      * The timer UI element, displaying how long the user has left to play the current piece
      */
@@ -194,9 +209,13 @@ public class ChallengeScene extends BaseScene {
         mainPane.setTop(timerPane);
         timerPane.setAlignment(Pos.TOP_LEFT);
 
-        board = new GameBoard(game.getGrid(),gameWindow.getWidth()/2,gameWindow.getWidth()/2);
+        board = new CanvasGameBoard(game.getGrid(),gameWindow.getWidth()/2,gameWindow.getWidth()/2);
         mainPane.setCenter(board);
 
+        //Show a ghost of the current piece under the mouse or cursor
+        placements = new PlacementMap(game.getGrid());
+        board.setPlacements(placements);
+
         //Handle block on Gameboard grid being clicked
         board.setOnBlockClick(this::blockClicked);
 
@@ -216,7 +235,7 @@ public class ChallengeScene extends BaseScene {
         });
 
         //Setting Right Clicked Listener
-        board.setOnRightClicked(this::rotate);
+        board.setOnRightClicked((x, y) -> rotate(1));
 
         //Setting BlockClickListener for the currentPiece preview
         pieceBoard.setOnBlockClick(this::rotate);
@@ -225,16 +244,18 @@ public class ChallengeScene extends BaseScene {
         followingPieceBoard.setOnBlockClick(this::swapPieces);
 
         //Adding a listener to the score property so that the highscore element can be changed
-        game.scoreProperty().addListener(this::getHighScore);
+        game.scoreProperty().addListener(highScoreListener);
+        highScores.topScoreProperty().addListener(highScoreListener);
 
     }
 
     /**
-     * Handle when a block is clicked
-     * @param gameBlock the Game Block that was clocked
+     * Handle when a cell of the board is clicked
+     * @param x column of the cell
+     * @param y row of the cell
      */
-    protected void blockClicked(GameBlock gameBlock) {
-        boolean piecePlayed = game.blockClicked(gameBlock);
+    protected void blockClicked(int x, int y) {
+        boolean piecePlayed = game.blockClicked(x, y);
         if(piecePlayed) {
             multimedia.playSound("place.wav");
             game.restartLoop();
@@ -267,13 +288,20 @@ public class ChallengeScene extends BaseScene {
     }
 
     /**
-     * changes the "PieceBoards" to display the correct current and following pieces
+     * changes the "PieceBoards" to display the correct current and following pieces. On a timeout this is called
+     * from the game timer thread, so the boards and placement map are updated on the JavaFX thread.
      * @param gamePiece current GamePiece
      * @param followingGamePiece following GamePiece
      */
     protected void nextPiece(GamePiece gamePiece, GamePiece followingGamePiece) {
+        if(!Platform.isFxApplicationThread()) {
+            PerformanceCounters.runLater(() -> nextPiece(gamePiece, followingGamePiece));
+            return;
+        }
         pieceBoard.pieceToDisplay(gamePiece);
         followingPieceBoard.pieceToDisplay(followingGamePiece);
+        placements.setPiece(gamePiece);
+        board.refreshGhost();
     }
 
     /**
@@ -300,6 +328,7 @@ public class ChallengeScene extends BaseScene {
             game.rotateCurrentPiece();
         }
         pieceBoard.pieceToDisplay(game.getCurrentPiece());
+        board.refreshGhost();
         multimedia.playSound("rotate.wav");
     }
 
@@ -318,6 +347,8 @@ public class ChallengeScene extends BaseScene {
         game.swapCurrentPiece();
         pieceBoard.pieceToDisplay(game.getCurrentPiece());
         followingPieceBoard.pieceToDisplay(game.getFollowingPiece());
+        placements.setPiece(game.getCurrentPiece());
+        board.refreshGhost();
         multimedia.playSound("rotate.wav");
     }
 
@@ -326,8 +357,6 @@ public class ChallengeScene extends BaseScene {
      * @param keyEvent Keyboard Input
      */
     protected void keyboardInput(KeyEvent keyEvent) {
-        int oldBlockX = blockX;
-        int oldBlockY = blockY;
         boolean moved = false;
         if(keyEvent.getCode() == KeyCode.ESCAPE) { //Exits frame
             gameEnd();
@@ -342,7 +371,7 @@ public class ChallengeScene extends BaseScene {
         } else if(keyEvent.getCode() == KeyCode.SPACE || keyEvent.getCode() == KeyCode.R) {
             swapPieces();  //Swaps the current and following pieces
         } else if(keyEvent.getCode() == KeyCode.ENTER || keyEvent.getCode() == KeyCode.X) {
-            blockClicked(board.getBlock(blockX, blockY)); //Clicks piece
+            blockClicked(blockX, blockY); //Clicks piece
         } else if(keyEvent.getCode() == KeyCode.W || keyEvent.getCode() == KeyCode.UP) { // Moves cursor up
             if(blockY>0) {
                 blockY-=1;
@@ -373,8 +402,7 @@ public class ChallengeScene extends BaseScene {
             }
         }
         if(moved) {
-            board.getBlock(oldBlockX, oldBlockY).resetCursor(); //Removes cursor from previous grid position
-            board.getBlock(blockX, blockY).paintCursor(); //Adds cursor to current grid position
+            board.setCursor(blockX, blockY); //Moves the cursor, repainting only the old and new cells
         }
     }
 
@@ -431,7 +459,7 @@ public class ChallengeScene extends BaseScene {
     }
 
     /**
-     * Updates highscore when the player's score has changed
+     * Updates highscore when the player's score or the best local score has changed
      * @param observable
      * @param oldValue
      * @param newValue
@@ -441,37 +469,19 @@ public class ChallengeScene extends BaseScene {
     }
 
     /**
-     * Checks local file if there is a high score, otherwise it will set the highscore to be the current score if it is
-     * higher
+     * Sets the highscore to the best local score, or the current score if it is higher. The best local score is held
+     * in memory by the HighScoreService, so this never reads the scores file.
      */
     protected void initialHighscore() {
-        File file = new File("scores.txt");
-        int highScore = 0;
-        try {
-            if (file.exists()) {
-                ArrayList<Pair<String, Integer>> scores = new ArrayList<>();
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                Scanner scanner = new Scanner(reader);
-                while (scanner.hasNext()) {
-                    String[] nameScore = scanner.next().split(":");
-                    var entry = new Pair<String, Integer>(nameScore[0], Integer.parseInt(nameScore[1]));
-                    scores.add(entry);
-                }
-                scanner.close();
-                scores.sort((a, b) -> b.getValue() - a.getValue());
-                highScore = scores.get(0).getValue();
-            } else {
-                highScore = game.scoreProperty().get();
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            logger.error("Error when finding highscore");
-        }
-        if(game.scoreProperty().get() > highScore) {
-            highScoreValue.set(game.scoreProperty().get());
-        } else {
-            highScoreValue.set(highScore);
-        }
+        highScoreValue.set(Math.max(highScores.getTopScore(), game.scoreProperty().get()));
+    }
+
+    /**
+     * Stop following the best local score when leaving the scene
+     */
+    @Override
+    public void cleanup() {
+        highScores.topScoreProperty().removeListener(highScoreListener);
     }
 
 }
@@ -1,22 +1,23 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.control.TextInputDialog;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
-import javafx.scene.input.MouseEvent;
 import javafx.scene.layout.*;
 import javafx.scene.text.Text;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.ChannelList;
+import uk.ac.soton.comp1206.component.ChatLog;
 import uk.ac.soton.comp1206.media.Multimedia;
+import uk.ac.soton.comp1206.network.ChannelPoller;
 import uk.ac.soton.comp1206.network.Communicator;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
@@ -34,9 +35,20 @@ public class LobbyScene extends BaseScene {
     private Multimedia multimedia = new Multimedia();
 
     /**
-     * Timer used to refresh channels
+     * Polls the server for channels, backing off while the list is stable
      */
-    protected Timer timer;
+    protected ChannelPoller poller;
+
+    /**
+     * Pauses polling while the window is minimised
+     */
+    protected ChangeListener<Boolean> iconifiedListener = (observable, wasIconified, iconified) -> {
+        if(iconified) {
+            poller.pause();
+        } else {
+            poller.resume();
+        }
+    };
 
     /**
      * Communicator used to find games, create channels and start games on the server
@@ -46,7 +58,7 @@ public class LobbyScene extends BaseScene {
     /**
      * Contains all names of channels available
      */
-    protected VBox channelNames = new VBox();
+    protected ChannelList channelNames;
 
     /**
      * Allows for the user to change their nickname
@@ -63,15 +75,25 @@ public class LobbyScene extends BaseScene {
      */
     protected Button startGame;
 
+    /**
+     * Toggles whether the player will spectate the game instead of playing
+     */
+    protected Button spectate;
+
+    /**
+     * Whether the player will spectate the next game instead of playing
+     */
+    protected boolean spectating = false;
+
     /**
      * Contains all of the functions available when the player has joined a channel
      */
     protected VBox channelBox;
 
     /**
-     * Shows the chat to the user
+     * Shows the chat to the user, keeping only recent messages
      */
-    protected VBox messagesBox;
+    protected ChatLog chatLog;
 
     /**
      * Shows the current players in the channel to the user
@@ -113,7 +135,6 @@ public class LobbyScene extends BaseScene {
      */
     @Override
     public void initialise() {
-        timer = new Timer();
         this.scene.setOnKeyPressed(keyEvent -> { //Leaves the game and channel when escape is pressed
             if(keyEvent.getCode() == KeyCode.ESCAPE) {
                 multimedia.playSound("transition.wav");
@@ -123,15 +144,16 @@ public class LobbyScene extends BaseScene {
                 communicator.send("PART");
             }
         });
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                Platform.runLater(() -> communicator.send("LIST"));
-            }
-        },1000, 3000); //searches for new channels every 3 seconds
         communicator = gameWindow.getCommunicator();
-        //Listens for messages from communicator and handles the command
-        communicator.addListener(message -> Platform.runLater(() -> listen(message.trim())));
+        //Listens for messages from communicator (delivered on the JavaFX thread) and handles the command
+        communicator.addListener(message -> listen(message.trim()));
+
+        //Searches for new channels, only while the lobby can be seen
+        poller = new ChannelPoller(communicator);
+        gameWindow.getStage().iconifiedProperty().addListener(iconifiedListener);
+        if(!gameWindow.getStage().isIconified()) {
+            poller.resume();
+        }
         multimedia.playBackgroundMusic("end.wav");
     }
 
@@ -156,6 +178,7 @@ public class LobbyScene extends BaseScene {
 
         //Channel UI - includes channel names and start new channel
         var channelUI = new VBox();
+        channelNames = new ChannelList(channel -> communicator.send("JOIN " + channel));
         borderPane.setLeft(channelUI);
 
         //Creates new start channel button, and logic for creating a new channel
@@ -172,6 +195,7 @@ public class LobbyScene extends BaseScene {
                 } else {
                     communicator.send("CREATE channel");
                 }
+                poller.pollNow();
             }
         });
 
@@ -200,7 +224,8 @@ public class LobbyScene extends BaseScene {
                 nickName.setVisible(false);
                 channelBox.setVisible(false);
                 channelText.setText(" ");
-                messagesBox.getChildren().clear();
+                chatLog.clear();
+                poller.pollNow();
             }
         });
 
@@ -217,24 +242,10 @@ public class LobbyScene extends BaseScene {
         var messagesPane = new BorderPane();
         messagesPane.setPrefSize(gameWindow.getWidth()/2, gameWindow.getHeight()/2);
 
-        //Scrollpane allows for chat to scroll down
-        var currentMessages = new ScrollPane();
-        currentMessages.getStyleClass().add("scroller");
-        currentMessages.setPrefSize(messagesPane.getWidth(), messagesPane.getHeight()-100);
-        currentMessages.needsLayoutProperty().addListener((observable, oldValue, newValue) -> {
-            if (!newValue) {
-                currentMessages.setVvalue(1.0);
-            }
-        });
-
-        //initialises VBox that contains messages
-        messagesBox = new VBox();
-        messagesBox.getStyleClass().add("messages");
-        messagesBox.setPrefSize(currentMessages.getPrefWidth(), currentMessages.getPrefHeight());
-        VBox.setVgrow(currentMessages, Priority.ALWAYS);
-
-        currentMessages.setContent(messagesBox);
-        messagesPane.setCenter(currentMessages);
+        //Only the visible lines of chat are kept as nodes
+        chatLog = new ChatLog();
+        chatLog.setPrefSize(messagesPane.getPrefWidth(), messagesPane.getPrefHeight());
+        messagesPane.setCenter(chatLog);
 
         var messageEntry = new TextField(); // allows for messages to be entered
         messageEntry.getStyleClass().add("TextField");
@@ -275,12 +286,22 @@ public class LobbyScene extends BaseScene {
             }
         });
 
+        //Creates spectate button, which toggles following the game without playing
+        spectate = new Button("Spectate: Off");
+        spectate.setOnAction(new EventHandler<ActionEvent>() {
+            @Override
+            public void handle(ActionEvent event) {
+                spectating = !spectating;
+                spectate.setText(spectating ? "Spectate: On" : "Spectate: Off");
+            }
+        });
+
         //initialises gridpane of players
         players = new GridPane();
-        players.setPrefWidth(currentMessages.getPrefWidth());
+        players.setPrefWidth(chatLog.getPrefWidth());
 
         var chatBox = new HBox(messageEntry, messageConfirm);
-        var buttonsHBox = new HBox(nickName, leaveChannel);
+        var buttonsHBox = new HBox(nickName, leaveChannel, spectate);
 
         channelText = new Text();
         channelText.getStyleClass().add("heading");
@@ -292,7 +313,7 @@ public class LobbyScene extends BaseScene {
         channelBox.setVisible(false);
 
         //Styles all buttons
-        Button[] buttons = new Button[]{startChannel, nickName, leaveChannel, startGame};
+        Button[] buttons = new Button[]{startChannel, nickName, leaveChannel, startGame, spectate};
         for (Button node: buttons) {
             node.hoverProperty().addListener((ov, oldValue, newValue) -> {
                 if (newValue) {
@@ -303,7 +324,7 @@ public class LobbyScene extends BaseScene {
             });
             node.setStyle("-fx-text-fill: white");
             node.getStyleClass().add("menuItem");
-            if(node == startGame) {
+            if(node == startGame || node == spectate) {
                 node.getStyleClass().clear();
                 node.getStyleClass().add("smallMenuItem");
             }
@@ -313,37 +334,25 @@ public class LobbyScene extends BaseScene {
         channelUI.getChildren().addAll(startChannel, channelNames);
     }
 
+    /**
+     * Stop polling for channels when leaving the lobby
+     */
+    @Override
+    public void cleanup() {
+        if(poller != null) {
+            gameWindow.getStage().iconifiedProperty().removeListener(iconifiedListener);
+            poller.shutdown();
+        }
+    }
+
     /**
      * Handles messages from communicator
      * @param s message from communicator
      */
     protected void listen(String s) {
-        if (s.contains("CHANNELS")) { //displays all channels available
-            channelNames.getChildren().clear();
-            s = s.replace("CHANNELS ", "");
-            String[] channelArray = s.split("\n");
-            for (String channel: channelArray) {
-                Text textChannel = new Text(channel);
-
-                //allows for user to join the clicked channels
-                textChannel.setOnMouseClicked(new EventHandler<MouseEvent>() {
-                    @Override
-                    public void handle(MouseEvent mouseEvent) {
-                        communicator.send("JOIN " + channel);
-                    }
-                });
-
-                //Styles the channels text
-                textChannel.hoverProperty().addListener((ov, oldValue, newValue) -> {
-                    if (newValue) {
-                        textChannel.setStyle("-fx-text-fill: yellow");
-                    } else {
-                        textChannel.setStyle("-fx-text-fill: white");
-                    }
-                });
-                textChannel.getStyleClass().add("channelItem");
-                channelNames.getChildren().add(textChannel);
-            }
+        if (s.contains("CHANNELS")) { //updates the channels available, touching only those which changed
+            s = s.startsWith("CHANNELS ") ? s.substring("CHANNELS ".length()) : ""; //No channels are open
+            poller.listReceived(channelNames.update(s));
         } else if (s.contains("JOIN")) { //Joining channel
             String[] channelName = s.split(" ");
             channelJoin(channelName[1]);
@@ -351,9 +360,7 @@ public class LobbyScene extends BaseScene {
             s = s.replace("MSG ", "");
             String[] messageArr = s.split(":");
             if(messageArr.length > 1) {
-                Text message = new Text(messageArr[0] + " : " + messageArr[1]);
-                message.getStyleClass().add("messages Text");
-                messagesBox.getChildren().add(message);
+                chatLog.addMessage(messageArr[0] + " : " + messageArr[1]);
             }
         } else if (s.contains("HOST")) {//player is now host of the channel
             startGame.setVisible(true);
@@ -406,12 +413,19 @@ public class LobbyScene extends BaseScene {
     }
 
     /**
-     * Starts the multiplayerScene
+     * Starts the multiplayerScene, or the SpectatorScene if the player chose to spectate. A spectator is still a player
+     * in the channel, so it sends DIE as the game starts, and the other players see it out of the game.
      */
     protected void startMultiplayer() {
         playerSet.remove(name);
         multimedia.playSound("transition.wav");
-        gameWindow.loadScene(new MultiplayerScene(gameWindow, playerSet));
+        if(spectating) {
+            //The server has no spectate mode, so drop out straight away rather than sit on a score of 0
+            communicator.send("DIE");
+            gameWindow.loadScene(new SpectatorScene(gameWindow, playerSet));
+        } else {
+            gameWindow.loadScene(new MultiplayerScene(gameWindow, playerSet));
+        }
         multimedia.stopBackground();
     }
 }
@@ -80,10 +80,11 @@ public class MenuScene extends BaseScene {
         var singlePlayer = new Button("Single Player");
         var multiPlayer = new Button("Multi Player");
         var instructions = new Button("How to Play");
+        var stats = new Button("Statistics");
         var exit = new Button("Exit");
 
         //Vbox to store and display all buttons
-        var vbox = new VBox(10, singlePlayer, multiPlayer, instructions, exit);
+        var vbox = new VBox(10, singlePlayer, multiPlayer, instructions, stats, exit);
         menuPane.getChildren().add(vbox);
 
         //Styles buttons
@@ -93,12 +94,14 @@ public class MenuScene extends BaseScene {
         singlePlayer.setBackground(null);
         multiPlayer.setBackground(null);
         instructions.setBackground(null);
+        stats.setBackground(null);
         exit.setBackground(null);
 
         //Button Actions
         singlePlayer.setOnAction(this::startGame);
         multiPlayer.setOnAction(this::startMultiplayer);
         instructions.setOnAction(this::startInstructions);
+        stats.setOnAction(this::startStats);
         exit.setOnAction((ActionEvent event) -> {
             System.exit(0);
         });
@@ -151,6 +154,16 @@ public class MenuScene extends BaseScene {
         multimedia.stopBackground();
     }
 
+    /**
+     * Handle when the Statistics button is pressed
+     * @param event
+     */
+    private void startStats(ActionEvent event) {
+        gameWindow.startStats();
+        multimedia.playSound("transition.wav");
+        multimedia.stopBackground();
+    }
+
     /**
      * Handle when the Instructions button is pressed
      * @param event
@@ -1,10 +1,9 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.application.Platform;
+import javafx.animation.AnimationTimer;
 import javafx.beans.property.SimpleListProperty;
 import javafx.collections.FXCollections;
 import javafx.geometry.Pos;
-import javafx.scene.control.ScrollPane;
 import javafx.scene.control.TextField;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
@@ -14,13 +13,16 @@ import javafx.scene.text.TextAlignment;
 import javafx.util.Pair;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
-import uk.ac.soton.comp1206.component.GameBoard;
+import uk.ac.soton.comp1206.component.ChatLog;
+import uk.ac.soton.comp1206.component.OpponentBoardWall;
 import uk.ac.soton.comp1206.component.ScoresList;
+import uk.ac.soton.comp1206.component.TelemetryOverlay;
 import uk.ac.soton.comp1206.game.MultiplayerGame;
+import uk.ac.soton.comp1206.game.OpponentBoards;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ConflationBuffer;
 import uk.ac.soton.comp1206.ui.GameWindow;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Set;
 
 /**
@@ -30,9 +32,9 @@ public class MultiplayerScene extends ChallengeScene{
     private static final Logger logger = LogManager.getLogger(MultiplayerScene.class);
 
     /**
-     * Shows the chat to the user
+     * Shows the chat to the user, keeping only recent messages
      */
-    protected VBox messagesBox;
+    protected ChatLog chatLog;
 
     /**
      * Communicator used to send messages to the server, and receive messages from the server
@@ -66,9 +68,39 @@ public class MultiplayerScene extends ChallengeScene{
     protected Set<String> players;
 
     /**
-     * A HashMap of players to their respective GameBoard
+     * The boards of all other players, one byte per cell
      */
-    protected HashMap<String, GameBoard> playerToGameboard;
+    protected OpponentBoards opponentBoards;
+
+    /**
+     * Draws the visible boards of all other players onto one canvas, scrolling if they don't fit
+     */
+    protected OpponentBoardWall opponentWall;
+
+    /**
+     * Shows network telemetry, toggled with F2
+     */
+    protected TelemetryOverlay telemetryOverlay;
+
+    /**
+     * The newest unparsed BOARD update for each player, waiting for the next render pulse
+     */
+    protected ConflationBuffer<String, String> boardUpdates = new ConflationBuffer<>();
+
+    /**
+     * The newest unparsed SCORES update, waiting for the next render pulse
+     */
+    protected String pendingScores;
+
+    /**
+     * Applies the waiting board and score updates once per render pulse
+     */
+    protected AnimationTimer renderTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyPendingUpdates();
+        }
+    };
 
     /**
      * Create a new MultiPlayer challenge scene
@@ -90,10 +122,13 @@ public class MultiplayerScene extends ChallengeScene{
     public void initialise() {
         super.initialise();
         communicator = gameWindow.getCommunicator();
-        //Listens for messages from communicator and handles the command
-        communicator.addListener(message -> Platform.runLater(() -> listen(message.trim())));
+        //Listens for messages from communicator (delivered on the JavaFX thread) and handles the command
+        communicator.addListener(message -> listen(message.trim()));
         communicator.send("SCORES");
         initialisePlayerBoards();
+        renderTimer.start();
+        //Measure round trip time with our own pings and dump telemetry while the game is live
+        communicator.getTelemetry().start(communicator::ping);
     }
 
     /**
@@ -130,6 +165,9 @@ public class MultiplayerScene extends ChallengeScene{
                 logger.info("Escape Pressed");
             }
         }
+        if (keyEvent.getCode() == KeyCode.F2) { //Shows network telemetry
+            telemetryOverlay.toggle();
+        }
         if (keyEvent.getCode() == KeyCode.ENTER) {
             if (textField.isVisible()) {
                 String message = textField.getText();
@@ -163,27 +201,13 @@ public class MultiplayerScene extends ChallengeScene{
         var messagesPane = new BorderPane();
         messagesPane.setPrefSize(gameWindow.getWidth()/8, gameWindow.getHeight()/8);
 
-        var currentMessages = new ScrollPane();
-        currentMessages.setBackground(null);
-        currentMessages.setPrefSize(messagesPane.getWidth(), messagesPane.getHeight()-100);
-        currentMessages.needsLayoutProperty().addListener((observable, oldValue, newValue) -> {
-            if (!newValue) {
-                currentMessages.setVvalue(1.0);
-            }
-        });
-
-        messagesBox = new VBox();
-        messagesBox.getStyleClass().add("messages");
-        messagesBox.setPrefSize(currentMessages.getPrefWidth(), currentMessages.getPrefHeight());
-        VBox.setVgrow(currentMessages, Priority.ALWAYS);
-
-        currentMessages.setContent(messagesBox);
-        messagesPane.setCenter(currentMessages);
+        chatLog = new ChatLog();
+        chatLog.setPrefSize(messagesPane.getPrefWidth(), messagesPane.getPrefHeight());
+        messagesPane.setCenter(chatLog);
 
         var chatHeading = new Text("Chat: <Press T to Chat>");
         chatHeading.setTextAlignment(TextAlignment.CENTER);
         chatHeading.getStyleClass().add("heading");
-        currentMessages.getStyleClass().add("scroller");
 
         var chatBox = new HBox(chatHeading, textField);
         chatBox.setMaxWidth(gameWindow.getWidth());
@@ -208,6 +232,10 @@ public class MultiplayerScene extends ChallengeScene{
         mainPane.setRight(sideBar);
         mainPane.setBottom(chat);
 
+        //Network telemetry, hidden until F2 is pressed
+        telemetryOverlay = new TelemetryOverlay(gameWindow.getCommunicator().getTelemetry());
+        root.getChildren().add(telemetryOverlay);
+
         //Setting GameEndListener
         game.setGameEndListener(game -> {
             gameEnd();
@@ -232,62 +260,92 @@ public class MultiplayerScene extends ChallengeScene{
             s = s.replace("MSG ", "");
             String[] messageArr = s.split(":");
             if (messageArr.length > 1) {
-                Text message = new Text(messageArr[0] + " : " + messageArr[1]);
-                message.getStyleClass().add("messages Text");
-                messagesBox.getChildren().add(message);
-            }
-        } else if (s.contains("SCORES")) { //Scores of all players in the game
-            s = s.replace("SCORES ", "");
-            String[] playerScoreLives = s.split("\n");
-            this.multiplayerScores.clear();
-            for (String item: playerScoreLives) {
-                String[] stats = item.split(":");
-                var entry = new Pair<String, Integer>(stats[0], Integer.parseInt(stats[1]));
-                this.multiplayerScores.add(entry);
+                chatLog.addMessage(messageArr[0] + " : " + messageArr[1]);
             }
+        } else if (s.contains("SCORES")) { //Scores of all players in the game, applied on the next pulse
+            pendingScores = s.replace("SCORES ", "");
         } else if(s.contains("DIE")) { //A player has lost or left
             s = s.replace("DIE ", "");
             endUser(s);
-        } else if(s.contains(("BOARD"))) { //A representation of a player's GameBoard
+        } else if(s.contains(("BOARD"))) { //A representation of a player's GameBoard, applied on the next pulse
             s=s.replace("BOARD ", "");
-            updatePlayerBoard(s);
+            int split = s.indexOf(':');
+            if(split > 0) {
+                boardUpdates.offer(s.substring(0, split), s);
+            }
         }
     }
 
     /**
-     * Initialises the sidebar which contains previews of all player's GameBoards
+     * Parses and applies only the newest scores and the newest board of each player received since the last pulse.
+     * Older updates were replaced unparsed, so the work here is bounded by the number of players.
+     */
+    protected void applyPendingUpdates() {
+        if(pendingScores != null) {
+            updateScores(pendingScores);
+            pendingScores = null;
+        }
+        boardUpdates.drain((player, board) -> updatePlayerBoard(board));
+        opponentWall.repaint();
+    }
+
+    /**
+     * Updates the leaderboard from a SCORES message, replacing the scores in one change
+     * @param scores the scores of all players, one player per line
+     */
+    protected void updateScores(String scores) {
+        String[] playerScoreLives = scores.split("\n");
+        var entries = new ArrayList<Pair<String, Integer>>();
+        for (String item: playerScoreLives) {
+            String[] stats = item.split(":");
+            entries.add(new Pair<String, Integer>(stats[0], Integer.parseInt(stats[1])));
+        }
+        this.multiplayerScores.setAll(entries); //A single change, so the leaderboard updates once
+    }
+
+    /**
+     * Ends the game, applying any final updates so the scores carried to the ScoresScene are current
+     */
+    @Override
+    protected void gameEnd() {
+        super.gameEnd();
+        renderTimer.stop();
+        telemetryOverlay.hide();
+        gameWindow.getCommunicator().getTelemetry().stop();
+        applyPendingUpdates();
+    }
+
+    /**
+     * Stop rendering and measuring the network when leaving the scene
+     */
+    @Override
+    public void cleanup() {
+        super.cleanup();
+        renderTimer.stop();
+        telemetryOverlay.hide();
+        gameWindow.getCommunicator().getTelemetry().stop();
+    }
+
+    /**
+     * Initialises the sidebar which contains previews of all player's GameBoards, drawn onto a single scrollable canvas
      */
     public void initialisePlayerBoards() {
-        playerToGameboard = new HashMap<>();
+        opponentBoards = new OpponentBoards(game.getCols(), game.getRows());
         for (String player: players) {
-            GameBoard gameBoard = new GameBoard(5,5, 75,75);
-            Text name = new Text(player);
-            name.getStyleClass().add("heading");
-            name.setTextAlignment(TextAlignment.CENTER);
-            boardSideBar.getChildren().addAll(name, gameBoard);
-            playerToGameboard.put(player, gameBoard);
+            opponentBoards.add(player);
         }
+        opponentWall = new OpponentBoardWall(opponentBoards, 172, gameWindow.getHeight() * 0.7, 40);
+        boardSideBar.getChildren().add(opponentWall);
         mainPane.setLeft(boardSideBar);
         boardSideBar.setAlignment(Pos.CENTER_LEFT);
         boardSideBar.setMaxHeight(this.gameWindow.getHeight());
     }
 
     /**
-     * Updates GameBoards when a message is received
+     * Updates a player's board when a message is received. Only the cells which changed will be repainted.
      * @param board String representation of a GameBoard
      */
     public void updatePlayerBoard(String board) {
-        String player = board.split(":")[0];
-        String[] values = board.split(":")[1].split(" ");
-        if(players.contains(player)) {
-            GameBoard gameBoard = playerToGameboard.get(player);
-            int i = 0;
-            for (int x = 0; x < this.game.getCols(); x++) {
-                for (int y = 0; y < this.game.getRows(); y++) {
-                    gameBoard.getGrid().set(x, y, Integer.parseInt(values[i]));
-                    i++;
-                }
-            }
-        }
+        opponentBoards.update(board);
     }
 }
@@ -1,7 +1,7 @@
 package uk.ac.soton.comp1206.scene;
 
-import javafx.application.Platform;
 import javafx.beans.property.SimpleListProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.collections.FXCollections;
 import javafx.event.ActionEvent;
 import javafx.geometry.Pos;
@@ -19,15 +19,19 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.component.ScoresList;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.game.GameStatistics;
 import uk.ac.soton.comp1206.media.Multimedia;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.OnlineLeaderboard;
+import uk.ac.soton.comp1206.scores.HighScoreService;
+import uk.ac.soton.comp1206.scores.ScoreIO;
+import uk.ac.soton.comp1206.scores.ScoreLog;
+import uk.ac.soton.comp1206.scores.StatsStore;
 import uk.ac.soton.comp1206.ui.GamePane;
 import uk.ac.soton.comp1206.ui.GameWindow;
 
-import java.io.*;
 import java.util.ArrayList;
-import java.util.Optional;
-import java.util.Scanner;
+import java.util.List;
 
 /**
  * The ScoresScene will hold and display a list of names and associated scores. It will load an ordered list of scores
@@ -65,6 +69,32 @@ public class ScoresScene extends BaseScene {
      */
     protected SimpleListProperty<Pair<String, Integer>> remoteScoresList = new SimpleListProperty<>();
 
+    /**
+     * Shows the rank of the player's score among every local game
+     */
+    protected Text rankText;
+
+    /**
+     * Whether the score should be sent to the server once the player has entered their name
+     */
+    protected boolean onlineScorePending = false;
+
+    /**
+     * Whether the score has been checked against the online leaderboard
+     */
+    protected boolean onlineScoreChecked = false;
+
+    /**
+     * Cached online high scores, shared with other scenes
+     */
+    protected OnlineLeaderboard leaderboard;
+
+    /**
+     * Shows new online scores as the leaderboard refreshes
+     */
+    protected ChangeListener<List<Pair<String, Integer>>> onlineListener =
+            (observable, oldValue, newValue) -> showOnlineScores(newValue);
+
     /**
      * Communicator is used to communicate with the server
      */
@@ -125,7 +155,7 @@ public class ScoresScene extends BaseScene {
         multimedia.playBackgroundMusic("end.wav");
         if(!isMultiplayer) {
             loadScores();
-            addScore(this.name, this.score);
+            askName();
         } else {
             this.localScoreList.addAll(multiplayerScores);
             this.localScoreList.sort((a, b) -> b.getValue() - a.getValue());
@@ -141,7 +171,7 @@ public class ScoresScene extends BaseScene {
             }
         });
         loadOnlineScores();
-        communicator.addListener(message -> Platform.runLater(() -> receiveCommunication(message.trim())));
+        communicator.addListener(message -> receiveCommunication(message.trim()));
     }
 
     /**
@@ -195,6 +225,12 @@ public class ScoresScene extends BaseScene {
         localScores.getChildren().add(scoresList);
         scoresList.setAlignment(Pos.CENTER);
         scoresList.setTranslateX(300);
+
+        //Rank of the player's score among all local games
+        rankText = new Text();
+        rankText.getStyleClass().add("scorelist");
+        localScores.getChildren().add(rankText);
+        rankText.setTranslateX(300);
         this.localScoreList.bind(scoresList.listProperty());
 
         //Online leaderboard text
@@ -210,15 +246,6 @@ public class ScoresScene extends BaseScene {
         onlineScoresList.setTranslateX(-300);
         this.remoteScoresList.bind(onlineScoresList.listProperty());
 
-        //Asks the user for their name
-        if(!isMultiplayer) {
-            var nameDialog = new TextInputDialog();
-            nameDialog.setTitle("Score Input");
-            nameDialog.setContentText("Enter Name To Add to Leaderboard");
-            Optional<String> result = nameDialog.showAndWait();
-            this.name = result.orElse("Anon");
-        }
-
         //Exit to main menu button
         var exit = new Button("Exit To Main Menu");
         exit.setBackground(null);
@@ -240,100 +267,131 @@ public class ScoresScene extends BaseScene {
     }
 
     /**
-     * Loads scores from a local file if available, otherwise it will generate a new file of scores
+     * Loads the best local scores from the score log in the background, showing a placeholder until they arrive. The
+     * log creates itself with a preset list of scores (or the scores of an old text file) if there isn't one.
      */
     protected void loadScores() {
-        File file = new File("scores.txt");
-        try {
-            var fileCreate = file.createNewFile();
-            if (fileCreate) {
-                writeScores();
-            } else {
-                BufferedReader reader = new BufferedReader(new FileReader(file));
-                Scanner scanner = new Scanner(reader);
-                while (scanner.hasNext()) {
-                    String[] nameScore = scanner.next().split(":");
-                    var entry = new Pair<String, Integer>(nameScore[0], Integer.parseInt(nameScore[1]));
-                    this.localScoreList.add(entry);
-                }
-                scanner.close();
-            }
-        } catch (Exception e) {
-            logger.error("Unable to complete file making");
-            e.printStackTrace();
-        }
+        this.localScoreList.setAll(List.of(placeholder()));
+        ScoreIO.submit(() -> ScoreLog.getDefault().getTopScores())
+                .thenAcceptAsync(scores -> this.localScoreList.setAll(scores), ScoreIO.FX)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    logger.error("Unable to load local scores");
+                    return null;
+                });
     }
 
     /**
-     * Generates a preset file of new scores
+     * Asks the user for their name without blocking, then adds their score
      */
-    private void writeScores() {
-        ArrayList<Pair<String, Integer>> scores = new ArrayList<>();
-        File file = new File("scores.txt");
-        try {
-            file.createNewFile(); // creates a new file
-
-            scores.add(new Pair<>("Daveraj", 1000));
-            scores.add(new Pair<>("Daveraj", 900));
-            scores.add(new Pair<>("Daveraj", 800));
-            scores.add(new Pair<>("Daveraj", 700));
-            scores.add(new Pair<>("Daveraj", 600));
-            scores.add(new Pair<>("Daveraj", 500));
-
-            FileWriter fileWriter = new FileWriter(file);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-
-            for (Pair pair : scores) {
-                String nameScore = pair.getKey() + ":" + pair.getValue();
-                localScoreList.add(pair); // adds score and name to the localscorelist as a pair
-                bufferedWriter.write(nameScore);
-                bufferedWriter.write("\n");
+    protected void askName() {
+        var nameDialog = new TextInputDialog();
+        nameDialog.setTitle("Score Input");
+        nameDialog.setContentText("Enter Name To Add to Leaderboard");
+        nameDialog.setOnHidden(event -> {
+            String result = nameDialog.getResult();
+            this.name = result == null ? "Anon" : result;
+            addScore(this.name, this.score);
+            recordStatistics(this.name);
+            if(onlineScorePending) {
+                onlineScorePending = false;
+                writeOnlineScore();
             }
-            bufferedWriter.close();
-            fileWriter.close();
-
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            logger.error("Error writing to file");
-        }
+        });
+        nameDialog.show();
     }
 
     /**
-     * Adds a given name and score to the local file, and sorts the localScoreList to be displayed
+     * Adds a given name and score to the score log in the background, then adds it to the localScoreList and shows
+     * its rank
      * @param name name of player
      * @param score score of player
      */
     public void addScore(String name, int score) {
-        File file = new File("scores.txt");
-        try{
-            FileWriter fileWriter = new FileWriter(file, true);
-            BufferedWriter bufferedWriter = new BufferedWriter(fileWriter);
-            bufferedWriter.write(name + ":" + score);
-            bufferedWriter.write("\n");
-            bufferedWriter.close();
-            fileWriter.close();
-
-            this.localScoreList.add(new Pair<String, Integer>(this.name, this.score));
-            this.localScoreList.sort((a, b) -> b.getValue() - a.getValue());
-        } catch (Exception e){
+        ScoreIO.submit(() -> {
+            var log = ScoreLog.getDefault();
+            log.append(name, score);
+            //Rank and percentile come from the score index, without loading every score
+            return String.format("Rank %d of %d - better than %.1f%%",
+                    log.rankOf(score), log.getCount(), log.percentileOf(score));
+        }).thenAcceptAsync(rank -> {
+            HighScoreService.getInstance().scoreAdded(score);
+            this.localScoreList.add(new Pair<String, Integer>(name, score));
+            this.localScoreList.sort(ScoreLog.BEST_FIRST);
+            rankText.setText(rank);
+        }, ScoreIO.FX).exceptionally(e -> {
             e.printStackTrace();
-            logger.error("Unable to add score to text file");
+            logger.error("Unable to add score to score log");
+            return null;
+        });
+    }
+
+    /**
+     * Adds the statistics of the finished game to the player's statistics in the background
+     * @param name name of player
+     */
+    protected void recordStatistics(String name) {
+        GameStatistics statistics = gameState.getStatistics();
+        if(!statistics.isFinished()) {
+            return;
         }
+        ScoreIO.submit(() -> {
+            StatsStore.getDefault().record(name, statistics);
+            return null;
+        }).exceptionally(e -> {
+            e.printStackTrace();
+            logger.error("Unable to record statistics");
+            return null;
+        });
+    }
+
+    /**
+     * Create a row to show while scores are loading
+     * @return placeholder row
+     */
+    protected Pair<String, Integer> placeholder() {
+        return new Pair<>("Loading...", null);
     }
 
     /**
-     * Sends message to receive highscores from the server
+     * Shows the cached online scores (or a placeholder if there are none yet), refreshing them from the server only if
+     * they are stale
      */
     protected void loadOnlineScores() {
-        communicator.send("HISCORES");
+        leaderboard = gameWindow.getLeaderboard();
+        leaderboard.snapshotProperty().addListener(onlineListener);
+        showOnlineScores(leaderboard.getSnapshot());
+        leaderboard.refreshIfStale();
+    }
+
+    /**
+     * Shows online scores, and the first time there are any, submits the player's score if it would make the board
+     * @param scores online scores, or null if none have arrived yet
+     */
+    protected void showOnlineScores(List<Pair<String, Integer>> scores) {
+        if(scores == null) {
+            remoteScoresList.setAll(List.of(placeholder()));
+            return;
+        }
+        remoteScoresList.setAll(scores);
+        if(!onlineScoreChecked) {
+            onlineScoreChecked = true;
+            if(leaderboard.qualifies(this.score)) {
+                // If the score is greater than the lowest score on the online score list, a new score will be sent
+                if(this.name == null && !isMultiplayer) {
+                    onlineScorePending = true; //Sent once the player has entered their name
+                } else {
+                    writeOnlineScore();
+                }
+            }
+        }
     }
 
     /**
      * Writes a new score to the online server
      */
     protected void writeOnlineScore() {
-        communicator.send("HISCORE " + this.name + ":" + this.score);
+        leaderboard.submit(this.name, this.score);
     }
 
     /**
@@ -341,19 +399,18 @@ public class ScoresScene extends BaseScene {
      * @param message message received from communicator
      */
     protected void receiveCommunication(String message) {
-        if(message.contains("NEWSCORE")) { //server has received highscore
+        if(message.contains("NEWSCORE")) { //server has received highscore, the leaderboard merges it in
             logger.info("Server received highscore");
-        } else if (message.contains("HISCORES")) { //Otherwise, the message is going to be received highscores from the server
-            message = message.replace("HISCORES", "");
-            String[] pairs = message.split("\n");
-            for (String pair : pairs) { //adds scores and name to remoteScoresList
-                String[] scoreName = pair.split(":");
-                remoteScoresList.add(new Pair<>(scoreName[0], Integer.parseInt(scoreName[1])));
-            }
-            if(remoteScoresList.get(8).getValue() < this.score) {
-                writeOnlineScore();
-                // If the score is greater than the lowest score on the online score list, a new score will be sent
-            }
+        }
+    }
+
+    /**
+     * Stop following the online leaderboard when leaving the scene
+     */
+    @Override
+    public void cleanup() {
+        if(leaderboard != null) {
+            leaderboard.snapshotProperty().removeListener(onlineListener);
         }
     }
 
@@ -0,0 +1,216 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.animation.AnimationTimer;
+import javafx.beans.property.SimpleListProperty;
+import javafx.collections.FXCollections;
+import javafx.geometry.Pos;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import javafx.util.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.component.OpponentBoardWall;
+import uk.ac.soton.comp1206.component.ScoresList;
+import uk.ac.soton.comp1206.game.OpponentBoards;
+import uk.ac.soton.comp1206.media.Multimedia;
+import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.ConflationBuffer;
+import uk.ac.soton.comp1206.ui.GamePane;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+import java.util.ArrayList;
+import java.util.Set;
+
+/**
+ * The SpectatorScene follows a multiplayer game without playing in it.
+ *
+ * Every player's board is kept in an OpponentBoards model, but only the boards scrolled into view on the
+ * OpponentBoardWall are drawn, so even channels with hundreds of players cost one canvas. Players who were not in the
+ * lobby's player list are added when their first board arrives.
+ *
+ * The server has no way to join a game only to watch, so the spectator joins as a player and the lobby sends DIE as
+ * soon as the game starts. The other players then see it struck out instead of a live player stuck on 0.
+ */
+public class SpectatorScene extends BaseScene {
+
+    private static final Logger logger = LogManager.getLogger(SpectatorScene.class);
+
+    private Multimedia multimedia = new Multimedia();
+
+    /**
+     * Communicator used to receive boards and scores from the server
+     */
+    protected Communicator communicator;
+
+    /**
+     * The players known when the game started
+     */
+    protected Set<String> players;
+
+    /**
+     * The boards of every player, one byte per cell
+     */
+    protected OpponentBoards boards = new OpponentBoards(5, 5);
+
+    /**
+     * Shows the boards currently scrolled into view
+     */
+    protected OpponentBoardWall wall;
+
+    /**
+     * Holds the scores of all players in the game
+     */
+    protected SimpleListProperty<Pair<String, Integer>> scores = new SimpleListProperty<>();
+
+    /**
+     * Shows the top scores
+     */
+    protected ScoresList leaderboard;
+
+    /**
+     * The newest unparsed BOARD update for each player, waiting for the next render pulse
+     */
+    protected ConflationBuffer<String, String> boardUpdates = new ConflationBuffer<>();
+
+    /**
+     * The newest unparsed SCORES update, waiting for the next render pulse
+     */
+    protected String pendingScores;
+
+    /**
+     * Applies the waiting board and score updates once per render pulse
+     */
+    protected AnimationTimer renderTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            applyPendingUpdates();
+        }
+    };
+
+    /**
+     * Create a new spectator scene
+     * @param gameWindow the game window
+     * @param players the players in the channel when the game started
+     */
+    public SpectatorScene(GameWindow gameWindow, Set<String> players) {
+        super(gameWindow);
+        this.players = players;
+        this.scores.set(FXCollections.observableArrayList(new ArrayList<Pair<String, Integer>>()));
+        logger.info("Creating Spectator Scene");
+    }
+
+    /**
+     * Build the layout of the scene
+     */
+    @Override
+    public void build() {
+        logger.info("Building " + this.getClass().getName());
+
+        root = new GamePane(gameWindow.getWidth(), gameWindow.getHeight());
+
+        var spectatorPane = new StackPane();
+        spectatorPane.setMaxWidth(gameWindow.getWidth());
+        spectatorPane.setMaxHeight(gameWindow.getHeight());
+        spectatorPane.getStyleClass().add("lobby-background");
+        root.getChildren().add(spectatorPane);
+
+        var mainPane = new BorderPane();
+        spectatorPane.getChildren().add(mainPane);
+
+        var title = new Text("Spectating - Press Escape to Leave");
+        title.getStyleClass().add("heading");
+        BorderPane.setAlignment(title, Pos.CENTER);
+        mainPane.setTop(title);
+
+        //Every known player gets a board, even if they never scroll into view
+        for (String player : players) {
+            boards.add(player);
+        }
+        wall = new OpponentBoardWall(boards, gameWindow.getWidth() * 0.7, gameWindow.getHeight() - 60, 50);
+        BorderPane.setAlignment(wall, Pos.CENTER);
+        mainPane.setCenter(wall);
+
+        leaderboard = new ScoresList();
+        leaderboard.setAlignment(Pos.CENTER);
+        this.scores.bind(leaderboard.listProperty());
+        mainPane.setRight(leaderboard);
+    }
+
+    /**
+     * Initialise the scene and start listening for boards and scores
+     */
+    @Override
+    public void initialise() {
+        communicator = gameWindow.getCommunicator();
+        //Listens for messages from communicator (delivered on the JavaFX thread) and handles the command
+        communicator.addListener(message -> listen(message.trim()));
+        scene.setOnKeyPressed(keyEvent -> {
+            if (keyEvent.getCode() == KeyCode.ESCAPE) {
+                logger.info("Escape Pressed");
+                communicator.send("PART");
+                multimedia.playSound("transition.wav");
+                gameWindow.startMenu();
+            }
+        });
+        communicator.send("SCORES");
+        renderTimer.start();
+    }
+
+    /**
+     * Handles messages from communicator
+     * @param s message received from communicator
+     */
+    protected void listen(String s) {
+        if (s.contains("SCORES")) { //Scores of all players, applied on the next pulse
+            pendingScores = s.replace("SCORES ", "");
+        } else if (s.contains("DIE")) { //A player has lost or left
+            leaderboard.strikeThrough(s.replace("DIE ", ""));
+        } else if (s.contains("BOARD")) { //A player's board, applied on the next pulse
+            s = s.replace("BOARD ", "");
+            int split = s.indexOf(':');
+            if (split > 0) {
+                boardUpdates.offer(s.substring(0, split), s);
+            }
+        }
+    }
+
+    /**
+     * Parses and applies only the newest scores and the newest board of each player received since the last pulse
+     */
+    protected void applyPendingUpdates() {
+        if (pendingScores != null) {
+            var entries = new ArrayList<Pair<String, Integer>>();
+            for (String item : pendingScores.split("\n")) {
+                String[] stats = item.split(":");
+                if (stats.length > 1) {
+                    entries.add(new Pair<>(stats[0], Integer.parseInt(stats[1])));
+                }
+            }
+            scores.setAll(entries);
+            pendingScores = null;
+        }
+        if (boardUpdates.isEmpty()) {
+            return;
+        }
+        int known = boards.size();
+        boardUpdates.drain((player, board) -> {
+            boards.add(player); //No-op for known players
+            boards.update(board);
+        });
+        if (boards.size() != known) {
+            wall.refresh(); //New players change the layout
+        } else {
+            wall.repaint();
+        }
+    }
+
+    /**
+     * Stop applying updates when leaving the scene, however it is left
+     */
+    @Override
+    public void cleanup() {
+        renderTimer.stop();
+    }
+}
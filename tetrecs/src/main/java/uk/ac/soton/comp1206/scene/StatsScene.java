@@ -0,0 +1,167 @@
+package uk.ac.soton.comp1206.scene;
+
+import javafx.geometry.Pos;
+import javafx.scene.input.KeyCode;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.StackPane;
+import javafx.scene.text.Text;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.media.Multimedia;
+import uk.ac.soton.comp1206.scores.PlayerStats;
+import uk.ac.soton.comp1206.scores.ScoreIO;
+import uk.ac.soton.comp1206.scores.StatsStore;
+import uk.ac.soton.comp1206.ui.GamePane;
+import uk.ac.soton.comp1206.ui.GameWindow;
+
+import java.util.List;
+
+/**
+ * The StatsScene shows the statistics of the local players who have played the most games. The statistics are kept as
+ * running totals by the StatsStore, so nothing needs to be recomputed to show them.
+ */
+public class StatsScene extends BaseScene {
+
+    private static final Logger logger = LogManager.getLogger(StatsScene.class);
+
+    /**
+     * Number of players shown
+     */
+    private static final int SHOWN = 10;
+
+    /**
+     * Column headings
+     */
+    private static final String[] HEADINGS =
+            {"Player", "Games", "Best", "Average", "Pieces", "Lines", "1/2/3/4+", "Streak", "Move"};
+
+    private Multimedia multimedia = new Multimedia();
+
+    /**
+     * Table of players' statistics
+     */
+    protected GridPane table;
+
+    /**
+     * Create a new scene, passing in the GameWindow the scene will be displayed in
+     * @param gameWindow the game window
+     */
+    public StatsScene(GameWindow gameWindow) {
+        super(gameWindow);
+        logger.info("Creating Statistics Scene");
+    }
+
+    /**
+     * Initialise this scene, loading the statistics in the background
+     */
+    @Override
+    public void initialise() {
+        scene.setOnKeyPressed(keyEvent -> {
+            if(keyEvent.getCode() == KeyCode.ESCAPE) {
+                multimedia.playSound("transition.wav");
+                gameWindow.startMenu();
+                logger.info("Escape Pressed");
+            }
+        });
+        ScoreIO.submit(() -> StatsStore.getDefault().getPlayers())
+                .thenAcceptAsync(this::showPlayers, ScoreIO.FX)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    logger.error("Unable to load statistics");
+                    return null;
+                });
+    }
+
+    /**
+     * Build the layout of the scene
+     */
+    @Override
+    public void build() {
+        logger.info("Building " + this.getClass().getName());
+
+        root = new GamePane(gameWindow.getWidth(), gameWindow.getHeight());
+
+        var statsPane = new StackPane();
+        statsPane.setMaxWidth(gameWindow.getWidth());
+        statsPane.setMaxHeight(gameWindow.getHeight());
+        statsPane.getStyleClass().add("menu-background");
+        root.getChildren().add(statsPane);
+
+        var mainPane = new BorderPane();
+        statsPane.getChildren().add(mainPane);
+
+        var title = new Text("Statistics");
+        title.getStyleClass().add("title");
+        BorderPane.setAlignment(title, Pos.TOP_CENTER);
+        mainPane.setTop(title);
+
+        table = new GridPane();
+        table.setHgap(15);
+        table.setVgap(5);
+        table.setAlignment(Pos.TOP_CENTER);
+        mainPane.setCenter(table);
+
+        for(int column = 0; column < HEADINGS.length; column++) {
+            var heading = new Text(HEADINGS[column]);
+            heading.getStyleClass().add("statsHeading");
+            table.add(heading, column, 0);
+        }
+        var loading = new Text("Loading...");
+        loading.getStyleClass().add("statsCell");
+        table.add(loading, 0, 1);
+
+        var hint = new Text("Press Escape to return to the menu");
+        hint.getStyleClass().add("scorelist");
+        BorderPane.setAlignment(hint, Pos.BOTTOM_CENTER);
+        mainPane.setBottom(hint);
+    }
+
+    /**
+     * Fill the table with the players who have played the most games
+     * @param players statistics of every player, most games first
+     */
+    protected void showPlayers(List<PlayerStats> players) {
+        table.getChildren().removeIf(node -> GridPane.getRowIndex(node) != null && GridPane.getRowIndex(node) > 0);
+        if(players.isEmpty()) {
+            var empty = new Text("No games played yet");
+            empty.getStyleClass().add("statsCell");
+            table.add(empty, 0, 1, HEADINGS.length, 1);
+            return;
+        }
+        int row = 1;
+        for(PlayerStats stats : players.subList(0, Math.min(SHOWN, players.size()))) {
+            String[] cells = {
+                    stats.getName(),
+                    String.valueOf(stats.getGames()),
+                    String.valueOf(stats.getBestScore()),
+                    String.format("%.0f", stats.getAverageScore()),
+                    String.valueOf(stats.getPieces()),
+                    String.valueOf(stats.getTotalLines()),
+                    stats.getLinesCleared(1) + "/" + stats.getLinesCleared(2) + "/" + stats.getLinesCleared(3) + "/"
+                            + fourOrMore(stats),
+                    String.valueOf(stats.getLongestStreak()),
+                    String.format("%.1fs", stats.getAverageMoveMillis() / 1000)
+            };
+            for(int column = 0; column < cells.length; column++) {
+                var cell = new Text(cells[column]);
+                cell.getStyleClass().add("statsCell");
+                table.add(cell, column, row);
+            }
+            row++;
+        }
+    }
+
+    /**
+     * Count the moves which cleared four or more lines
+     * @param stats statistics of a player
+     * @return number of moves
+     */
+    private long fourOrMore(PlayerStats stats) {
+        long moves = 0;
+        for(int lines = 4; lines < PlayerStats.LINE_BUCKETS; lines++) {
+            moves += stats.getLinesCleared(lines);
+        }
+        return moves;
+    }
+}
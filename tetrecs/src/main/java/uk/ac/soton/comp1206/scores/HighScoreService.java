@@ -0,0 +1,131 @@
+package uk.ac.soton.comp1206.scores;
+
+import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.SimpleIntegerProperty;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.io.IOException;
+import java.nio.file.*;
+
+/**
+ * The HighScoreService keeps the best local score in memory, so the game can show it without touching the disk.
+ *
+ * The score log is opened once, on a background thread, when the service is first used. Scores added by the game
+ * update the top score directly, and the log file is watched so that changes made outside the game are picked up too.
+ * The top score property is only ever changed on the JavaFX thread.
+ */
+public class HighScoreService {
+
+    private static final Logger logger = LogManager.getLogger(HighScoreService.class);
+
+    /**
+     * The shared service
+     */
+    private static HighScoreService instance;
+
+    /**
+     * The local scores, set once opened
+     */
+    private ScoreLog log;
+
+    /**
+     * The best local score
+     */
+    private final SimpleIntegerProperty topScore = new SimpleIntegerProperty(0);
+
+    /**
+     * Get the shared service, creating it and starting to load the scores the first time
+     * @return the high score service
+     */
+    public static synchronized HighScoreService getInstance() {
+        if(instance == null) {
+            instance = new HighScoreService();
+        }
+        return instance;
+    }
+
+    /**
+     * Create a new service, opening and then watching the score log on a background thread
+     */
+    protected HighScoreService() {
+        Thread watcher = new Thread(this::watch, "HighScore-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * Get the best local score. Only use on the JavaFX thread.
+     * @return the top score property
+     */
+    public ReadOnlyIntegerProperty topScoreProperty() {
+        return topScore;
+    }
+
+    /**
+     * Get the best local score
+     * @return the top score
+     */
+    public int getTopScore() {
+        return topScore.get();
+    }
+
+    /**
+     * Record that a score has been added to the local scores, without reading the file again
+     * @param score the new score
+     */
+    public void scoreAdded(int score) {
+        if(Platform.isFxApplicationThread()) {
+            if(score > topScore.get()) {
+                topScore.set(score);
+            }
+        } else {
+            PerformanceCounters.runLater(() -> scoreAdded(score));
+        }
+    }
+
+    /**
+     * Load the scores, then reload them whenever the file changes
+     */
+    private void watch() {
+        log = ScoreLog.getDefault();
+        Path file = log.getFile();
+        publish();
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            while(true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for(WatchEvent<?> event : key.pollEvents()) {
+                    if(file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                if(changed && log.reloadIfChanged()) {
+                    publish();
+                }
+                if(!key.reset()) {
+                    logger.error("Stopped watching " + file.getParent());
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            logger.info("High score watcher stopped");
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to watch " + file + " for changes");
+        }
+    }
+
+    /**
+     * Publish the best score in the log on the JavaFX thread
+     */
+    private void publish() {
+        int best = log.getTopScore();
+        logger.info("Loaded top local score " + best);
+        PerformanceCounters.runLater(() -> topScore.set(best));
+    }
+}
@@ -0,0 +1,169 @@
+package uk.ac.soton.comp1206.scores;
+
+import uk.ac.soton.comp1206.game.GameStatistics;
+
+/**
+ * PlayerStats holds the running totals of every game a player has finished.
+ *
+ * Only totals are kept, never individual games, so adding a game and reading an average are both constant time and
+ * the stored size of a player doesn't grow with the number of games.
+ */
+public class PlayerStats {
+
+    /**
+     * Number of line counts kept separately; clears of more lines are counted in the last bucket
+     */
+    public static final int LINE_BUCKETS = 11;
+
+    private final String name;
+    protected long games;
+    protected long pieces;
+    protected long timeouts;
+    protected long totalScore;
+    protected long bestScore;
+    protected long bestMove;
+    protected long moveMillis;
+    protected long longestStreak;
+
+    /**
+     * Number of moves which cleared each number of lines at once
+     */
+    protected final long[] linesByCount = new long[LINE_BUCKETS];
+
+    /**
+     * Create empty statistics for a player
+     * @param name name of the player
+     */
+    public PlayerStats(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Add a finished game to the totals
+     * @param game statistics of the game
+     */
+    public void add(GameStatistics game) {
+        games++;
+        pieces += game.getPiecesPlaced();
+        timeouts += game.getTimeouts();
+        totalScore += game.getFinalScore();
+        bestScore = Math.max(bestScore, game.getFinalScore());
+        bestMove = Math.max(bestMove, game.getBestMove());
+        moveMillis += game.getMoveMillis();
+        longestStreak = Math.max(longestStreak, game.getLongestStreak());
+        for(int lines = 1; lines <= game.getMaxLines(); lines++) {
+            linesByCount[Math.min(lines, LINE_BUCKETS - 1)] += game.getLinesCleared(lines);
+        }
+    }
+
+    /**
+     * Copy these statistics, so they can be handed to another thread
+     * @return a copy
+     */
+    public PlayerStats copy() {
+        var copy = new PlayerStats(name);
+        copy.games = games;
+        copy.pieces = pieces;
+        copy.timeouts = timeouts;
+        copy.totalScore = totalScore;
+        copy.bestScore = bestScore;
+        copy.bestMove = bestMove;
+        copy.moveMillis = moveMillis;
+        copy.longestStreak = longestStreak;
+        System.arraycopy(linesByCount, 0, copy.linesByCount, 0, LINE_BUCKETS);
+        return copy;
+    }
+
+    /**
+     * Get the name of the player
+     * @return player name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the number of games played
+     * @return number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+    /**
+     * Get the total number of pieces played
+     * @return number of pieces
+     */
+    public long getPieces() {
+        return pieces;
+    }
+
+    /**
+     * Get the total number of turns lost to the timer
+     * @return number of timeouts
+     */
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    /**
+     * Get the best final score
+     * @return best score
+     */
+    public long getBestScore() {
+        return bestScore;
+    }
+
+    /**
+     * Get the most points scored by a single move
+     * @return best move's points
+     */
+    public long getBestMove() {
+        return bestMove;
+    }
+
+    /**
+     * Get the longest run of consecutive moves which cleared lines
+     * @return longest streak
+     */
+    public long getLongestStreak() {
+        return longestStreak;
+    }
+
+    /**
+     * Get the number of moves which cleared a number of lines at once
+     * @param lines number of lines, the last bucket counting that many or more
+     * @return number of moves
+     */
+    public long getLinesCleared(int lines) {
+        return linesByCount[Math.min(lines, LINE_BUCKETS - 1)];
+    }
+
+    /**
+     * Get the total number of lines cleared
+     * @return number of lines
+     */
+    public long getTotalLines() {
+        long total = 0;
+        for(int lines = 1; lines < LINE_BUCKETS; lines++) {
+            total += lines * linesByCount[lines];
+        }
+        return total;
+    }
+
+    /**
+     * Get the average final score
+     * @return average score, or 0 with no games
+     */
+    public double getAverageScore() {
+        return games == 0 ? 0 : (double) totalScore / games;
+    }
+
+    /**
+     * Get the average time taken to play a piece
+     * @return average time in milliseconds, or 0 with no pieces
+     */
+    public double getAverageMoveMillis() {
+        return pieces == 0 ? 0 : (double) moveMillis / pieces;
+    }
+}
@@ -0,0 +1,42 @@
+package uk.ac.soton.comp1206.scores;
+
+import uk.ac.soton.comp1206.ui.PerformanceCounters;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * ScoreIO runs score persistence off the JavaFX thread.
+ *
+ * All tasks run in order on a single daemon thread, so a score appended after the scores are loaded is always seen
+ * in that order. Results are handed back to the JavaFX thread with {@link #FX}.
+ */
+public class ScoreIO {
+
+    /**
+     * The thread all score I/O runs on
+     */
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "Score-IO");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Runs continuations on the JavaFX thread
+     */
+    public static final Executor FX = PerformanceCounters::runLater;
+
+    /**
+     * Run a task on the score I/O thread
+     * @param task the task
+     * @param <T> type of the result
+     * @return future completed with the result of the task
+     */
+    public static <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(task, executor);
+    }
+}
@@ -0,0 +1,373 @@
+package uk.ac.soton.comp1206.scores;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ScoreIndex answers rank queries over a ScoreLog without reading the log.
+ *
+ * The sorted section of the log is mirrored in an index file of fixed-width entries, each a score and the offset of
+ * its record in the log, best first. The file is memory-mapped, so counting the scores above a given score is a binary
+ * search touching only a few pages, however many scores there are. Scores appended since the last compaction are kept
+ * in small sorted arrays in memory and searched the same way.
+ *
+ * A mapped file can't be replaced on every platform, so each compaction writes a new generation (scores.1.idx,
+ * scores.2.idx, ...) and maps that instead. Older generations are deleted once they can be.
+ */
+public class ScoreIndex {
+
+    private static final Logger logger = LogManager.getLogger(ScoreIndex.class);
+
+    /**
+     * Identifies a score index ("TSIX")
+     */
+    public static final int MAGIC = 0x54534958;
+
+    /**
+     * Current file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header: magic, version, entry count and end of the log's sorted section
+     */
+    private static final int HEADER = 24;
+
+    /**
+     * Size of each entry: score and record offset
+     */
+    private static final int ENTRY = 12;
+
+    /**
+     * The index file name the generations are named after, such as scores.idx
+     */
+    private final Path file;
+
+    /**
+     * The start of each generation's file name, such as "scores."
+     */
+    private final String stem;
+
+    /**
+     * The newest generation written or found, or 0 if there are none
+     */
+    private long generation;
+
+    /**
+     * The mapped index, or null if there isn't one
+     */
+    private MappedByteBuffer map;
+
+    /**
+     * Number of entries in the mapped index
+     */
+    private long count;
+
+    /**
+     * Scores appended since the index was written, best first
+     */
+    private int[] tailScores = new int[16];
+
+    /**
+     * Record offsets of the appended scores, in the same order
+     */
+    private long[] tailOffsets = new long[16];
+
+    /**
+     * Number of appended scores
+     */
+    private int tailSize;
+
+    /**
+     * Create an index for a file, without mapping it yet
+     * @param file the index file, whose generations are written alongside it (scores.idx becomes scores.1.idx, ...)
+     */
+    public ScoreIndex(Path file) {
+        this.file = file;
+        this.stem = file.getFileName().toString().replaceFirst("\\.idx$", "") + ".";
+    }
+
+    /**
+     * Map the newest generation of the index if it matches the sorted section of the log. Its header and size are
+     * checked with plain reads first, so an out of date file is never mapped. Older generations, left behind while
+     * they were still mapped, are deleted.
+     * @param expected number of sorted records in the log
+     * @param sortedEnd end of the sorted section of the log
+     * @return true if the index was mapped, false if it needs writing
+     */
+    public boolean map(long expected, long sortedEnd) {
+        map = null;
+        count = 0;
+        generation = Math.max(generation, newestGeneration());
+        deleteGenerations(generation);
+        if(generation == 0) {
+            return false;
+        }
+        return map(generationFile(generation), expected, sortedEnd);
+    }
+
+    /**
+     * Map an index file if it matches the sorted section of the log
+     * @param target the index file
+     * @param expected number of sorted records in the log
+     * @param sortedEnd end of the sorted section of the log
+     * @return true if the index was mapped
+     */
+    private boolean map(Path target, long expected, long sortedEnd) {
+        if(!Files.exists(target)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            while(header.hasRemaining() && channel.read(header) > 0) {
+                //Keep reading until the whole header is in
+            }
+            header.flip();
+            if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION
+                    || header.getLong() != expected || header.getLong() != sortedEnd
+                    || channel.size() != HEADER + expected * ENTRY) {
+                logger.info("Score index " + target + " is out of date");
+                return false;
+            }
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            count = expected;
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to map score index " + target);
+            return false;
+        }
+    }
+
+    /**
+     * Write a new generation of the index and map it. A mapped file is never replaced, as that fails on some
+     * platforms while the mapping is live; the generation it replaces is deleted once nothing maps it.
+     * @param scores scores of the sorted records, best first
+     * @param offsets offsets of the sorted records
+     * @param length number of entries to write
+     * @param sortedEnd end of the sorted section of the log
+     */
+    public void write(int[] scores, long[] offsets, int length, long sortedEnd) {
+        //The mapped generation no longer matches the log
+        map = null;
+        count = 0;
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeLong(sortedEnd);
+            for(int i = 0; i < length; i++) {
+                out.writeInt(scores[i]);
+                out.writeLong(offsets[i]);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to write score index " + temp);
+            return;
+        }
+        generation = Math.max(generation, newestGeneration()) + 1;
+        Path target = generationFile(generation);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to write score index " + target);
+            return;
+        }
+        if(map(target, length, sortedEnd)) {
+            deleteGenerations(generation);
+        }
+    }
+
+    /**
+     * Get the file of a generation of the index
+     * @param number the generation
+     * @return path of its file
+     */
+    private Path generationFile(long number) {
+        return file.resolveSibling(stem + number + ".idx");
+    }
+
+    /**
+     * Find the newest generation of the index on disk
+     * @return the newest generation, or 0 if there are none
+     */
+    private long newestGeneration() {
+        long newest = 0;
+        for(long number : listGenerations()) {
+            newest = Math.max(newest, number);
+        }
+        return newest;
+    }
+
+    /**
+     * Delete every generation of the index other than one, and the index file from before there were generations.
+     * Files which can't be deleted yet, such as ones still mapped on Windows, are left for a later start.
+     * @param keep the generation to keep
+     */
+    private void deleteGenerations(long keep) {
+        var stale = new ArrayList<Path>();
+        stale.add(file);
+        for(long number : listGenerations()) {
+            if(number != keep) {
+                stale.add(generationFile(number));
+            }
+        }
+        for(Path old : stale) {
+            try {
+                Files.deleteIfExists(old);
+            } catch (IOException e) {
+                logger.debug("Unable to delete old score index {} yet", old);
+            }
+        }
+    }
+
+    /**
+     * List the generations of the index on disk
+     * @return generation numbers, in no particular order
+     */
+    private List<Long> listGenerations() {
+        var numbers = new ArrayList<Long>();
+        Path directory = file.toAbsolutePath().getParent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, stem + "*.idx")) {
+            for(Path generationFile : files) {
+                String name = generationFile.getFileName().toString();
+                String number = name.substring(stem.length(), name.length() - ".idx".length());
+                if(!number.isEmpty() && number.chars().allMatch(Character::isDigit)) {
+                    numbers.add(Long.parseLong(number));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            e.printStackTrace();
+            logger.error("Unable to list score indexes in " + directory);
+        }
+        return numbers;
+    }
+
+    /**
+     * Add a score appended to the log since the index was written
+     * @param score the score
+     * @param offset offset of its record in the log
+     */
+    public void addTail(int score, long offset) {
+        if(tailSize == tailScores.length) {
+            tailScores = Arrays.copyOf(tailScores, tailSize * 2);
+            tailOffsets = Arrays.copyOf(tailOffsets, tailSize * 2);
+        }
+        //Insert after any equal scores, so earlier games keep the better rank
+        int position = tailAbove(score - 1);
+        System.arraycopy(tailScores, position, tailScores, position + 1, tailSize - position);
+        System.arraycopy(tailOffsets, position, tailOffsets, position + 1, tailSize - position);
+        tailScores[position] = score;
+        tailOffsets[position] = offset;
+        tailSize++;
+    }
+
+    /**
+     * Forget the appended scores, once they have been written into the index
+     */
+    public void clearTail() {
+        tailSize = 0;
+    }
+
+    /**
+     * Get the number of scores in the index, mapped and appended
+     * @return number of scores
+     */
+    public long size() {
+        return count + tailSize;
+    }
+
+    /**
+     * Count the scores strictly greater than a score
+     * @param score the score
+     * @return number of better scores
+     */
+    public long countAbove(int score) {
+        return mappedAbove(score) + tailAbove(score);
+    }
+
+    /**
+     * Get the log offsets of the best scores, merging the mapped index with the appended scores
+     * @param n number of scores wanted
+     * @return offsets of up to n records, best first
+     */
+    public long[] topOffsets(int n) {
+        int length = (int) Math.min(n, size());
+        long[] offsets = new long[length];
+        long mapped = 0;
+        int tail = 0;
+        for(int i = 0; i < length; i++) {
+            if(tail >= tailSize || (mapped < count && mappedScore(mapped) >= tailScores[tail])) {
+                offsets[i] = map.getLong((int) (HEADER + mapped * ENTRY + 4));
+                mapped++;
+            } else {
+                offsets[i] = tailOffsets[tail++];
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Count the mapped scores strictly greater than a score, by binary search
+     * @param score the score
+     * @return number of better scores in the mapped index
+     */
+    private long mappedAbove(int score) {
+        long low = 0;
+        long high = count;
+        while(low < high) {
+            long mid = (low + high) >>> 1;
+            if(mappedScore(mid) > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Count the appended scores strictly greater than a score, by binary search
+     * @param score the score
+     * @return number of better appended scores
+     */
+    private int tailAbove(int score) {
+        int low = 0;
+        int high = tailSize;
+        while(low < high) {
+            int mid = (low + high) >>> 1;
+            if(tailScores[mid] > score) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Get a score from the mapped index
+     * @param entry position of the entry
+     * @return the score
+     */
+    private int mappedScore(long entry) {
+        return map.getInt((int) (HEADER + entry * ENTRY));
+    }
+}
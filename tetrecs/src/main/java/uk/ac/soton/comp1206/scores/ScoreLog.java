@@ -0,0 +1,706 @@
+package uk.ac.soton.comp1206.scores;
+
+import javafx.util.Pair;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * The ScoreLog stores local scores in an append-only binary file (scores.dat).
+ *
+ * The file starts with a header giving the number and end of a section of records sorted best first, written by the
+ * last compaction. New scores are appended after it. Each record is length-prefixed (score then UTF-8 name) and
+ * followed by a CRC32 checksum, so names may hold any character and a torn write at the end of the file is detected
+ * and cut off when loading.
+ *
+ * Loading only reads the first TOP_K sorted records and the unsorted tail, keeping the best scores in a heap, so load
+ * time does not grow with the whole history. Once the tail grows long enough it is sorted and merged into the sorted
+ * section by a background compaction, which writes a temporary file and atomically renames it over the log.
+ *
+ * Ranks, percentiles and longer top lists are answered by a memory-mapped ScoreIndex (scores.N.idx) of the sorted
+ * section, rewritten at each compaction.
+ */
+public class ScoreLog {
+
+    private static final Logger logger = LogManager.getLogger(ScoreLog.class);
+
+    /**
+     * Identifies a score log ("TSCO")
+     */
+    public static final int MAGIC = 0x5453434F;
+
+    /**
+     * Current file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * Size of the header: magic, version, sorted record count and end of the sorted section
+     */
+    protected static final int HEADER = 24;
+
+    /**
+     * Longest record payload accepted, larger lengths mean the file is damaged
+     */
+    private static final int MAX_RECORD = 4096;
+
+    /**
+     * Number of best scores kept in memory, can be changed with -Dtetrecs.scores.top
+     */
+    public static final int TOP_K = Integer.getInteger("tetrecs.scores.top", 100);
+
+    /**
+     * Unsorted records allowed before compacting, can be changed with -Dtetrecs.scores.compact
+     */
+    public static final int COMPACT_AFTER = Integer.getInteger("tetrecs.scores.compact", 1000);
+
+    /**
+     * Orders records best first, keeping the order they were added for equal scores
+     */
+    public static final Comparator<Pair<String, Integer>> BEST_FIRST =
+            (a, b) -> Integer.compare(b.getValue(), a.getValue());
+
+    /**
+     * The shared log
+     */
+    private static ScoreLog instance;
+
+    /**
+     * The log file
+     */
+    private final Path file;
+
+    /**
+     * Sorted index of every score, for rank queries
+     */
+    private final ScoreIndex index;
+
+    /**
+     * Open channel to the log file, appended to at end
+     */
+    private FileChannel channel;
+
+    /**
+     * Number of records in the sorted section
+     */
+    private long sortedCount;
+
+    /**
+     * Offset just after the sorted section
+     */
+    private long sortedEnd;
+
+    /**
+     * Number of records appended after the sorted section
+     */
+    private long tailCount;
+
+    /**
+     * Offset just after the last good record
+     */
+    private long end;
+
+    /**
+     * The best TOP_K scores, worst at the head
+     */
+    private final PriorityQueue<Pair<String, Integer>> top =
+            new PriorityQueue<>(Comparator.comparingInt(Pair::getValue));
+
+    /**
+     * Whether a compaction is running
+     */
+    private boolean compacting = false;
+
+    /**
+     * Runs compactions in the background
+     */
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ScoreLog-Compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Get the shared log (scores.dat), opening it the first time
+     * @return the score log
+     */
+    public static synchronized ScoreLog getDefault() {
+        if(instance == null) {
+            instance = new ScoreLog(Paths.get("scores.dat"));
+        }
+        return instance;
+    }
+
+    /**
+     * Open a score log, creating it if it doesn't exist
+     * @param file the log file
+     */
+    public ScoreLog(Path file) {
+        this.file = file.toAbsolutePath();
+        this.index = new ScoreIndex(this.file.resolveSibling(
+                this.file.getFileName().toString().replaceFirst("\\.dat$", "") + ".idx"));
+        try {
+            open();
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to open score log " + this.file);
+        }
+    }
+
+    /**
+     * Get the log file
+     * @return path of the log
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Create the log if needed, then load the best scores and the unsorted tail
+     * @throws IOException if the log can't be read
+     */
+    protected synchronized void open() throws IOException {
+        if(!Files.exists(file)) {
+            create();
+        }
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        channel.read(header, 0);
+        header.flip();
+        if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            logger.error("Score log " + file + " is not readable, starting a new one");
+            channel.close();
+            Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"), StandardCopyOption.REPLACE_EXISTING);
+            create();
+            open();
+            return;
+        }
+        sortedCount = header.getLong();
+        sortedEnd = header.getLong();
+        tailCount = 0;
+        top.clear();
+
+        //The sorted section is best first, so only its head can be in the top scores
+        var in = reader(HEADER);
+        for(long i = 0; i < Math.min(sortedCount, TOP_K); i++) {
+            var record = readRecord(in);
+            if(record == null) {
+                break;
+            }
+            offerTop(record);
+        }
+
+        //The index only needs rebuilding from the whole sorted section if it is missing or out of date
+        if(!index.map(sortedCount, sortedEnd)) {
+            logger.info("Rebuilding score index");
+            int[] scores = new int[(int) sortedCount];
+            long[] offsets = new long[(int) sortedCount];
+            in = reader(HEADER);
+            long offset = HEADER;
+            for(int i = 0; i < sortedCount; i++) {
+                var record = readRecord(in);
+                if(record == null) {
+                    throw new IOException("Sorted section of " + file + " is damaged");
+                }
+                scores[i] = record.getValue();
+                offsets[i] = offset;
+                offset += recordSize(record.getKey().getBytes(StandardCharsets.UTF_8).length);
+            }
+            index.write(scores, offsets, scores.length, sortedEnd);
+        }
+
+        //Every record in the tail needs reading; stop at the first damaged one
+        index.clearTail();
+        end = sortedEnd;
+        scanTail(true);
+        if(end < channel.size()) {
+            logger.error("Cutting off " + (channel.size() - end) + " damaged bytes at the end of " + file);
+            channel.truncate(end);
+        }
+        logger.info("Opened score log with " + getCount() + " scores (" + tailCount + " unsorted)");
+    }
+
+    /**
+     * Read the records after end, adding them to the index
+     * @param offer whether to offer them to the top scores too
+     * @throws IOException if the log can't be read
+     */
+    private void scanTail(boolean offer) throws IOException {
+        var in = reader(end);
+        Pair<String, Integer> record;
+        while((record = readRecord(in)) != null) {
+            if(offer) {
+                offerTop(record);
+                tailCount++;
+            }
+            index.addTail(record.getValue(), end);
+            end += recordSize(record.getKey().getBytes(StandardCharsets.UTF_8).length);
+        }
+    }
+
+    /**
+     * Create a new log from the old text scores file if there is one, or the default scores
+     * @throws IOException if the log can't be written
+     */
+    protected void create() throws IOException {
+        var records = new ArrayList<Pair<String, Integer>>();
+        Path legacy = file.resolveSibling("scores.txt");
+        if(Files.exists(legacy)) {
+            logger.info("Migrating " + legacy + " to " + file);
+            for(String line : Files.readAllLines(legacy, StandardCharsets.UTF_8)) {
+                int split = line.lastIndexOf(':');
+                if(split < 0) {
+                    continue;
+                }
+                try {
+                    records.add(new Pair<>(line.substring(0, split), Integer.parseInt(line.substring(split + 1).trim())));
+                } catch (NumberFormatException e) {
+                    logger.error("Skipping bad score line: " + line);
+                }
+            }
+            Files.move(legacy, legacy.resolveSibling("scores.txt.migrated"), StandardCopyOption.REPLACE_EXISTING);
+        } else {
+            records.add(new Pair<>("Daveraj", 1000));
+            records.add(new Pair<>("Daveraj", 900));
+            records.add(new Pair<>("Daveraj", 800));
+            records.add(new Pair<>("Daveraj", 700));
+            records.add(new Pair<>("Daveraj", 600));
+            records.add(new Pair<>("Daveraj", 500));
+        }
+        records.sort(BEST_FIRST);
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        writeSorted(temp, records).close();
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Append a score to the log
+     * @param name name of the player
+     * @param score score achieved
+     */
+    public synchronized void append(String name, int score) {
+        if(channel == null) {
+            logger.error("Score log is not open, dropping score " + name + ":" + score);
+            return;
+        }
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(recordSize(nameBytes.length));
+        buffer.putInt(4 + nameBytes.length);
+        buffer.putInt(score);
+        buffer.put(nameBytes);
+        var crc = new CRC32();
+        crc.update(buffer.array(), 4, 4 + nameBytes.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        long offset = end;
+        try {
+            while(buffer.hasRemaining()) {
+                end += channel.write(buffer, end);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to append score to " + file);
+            //Cut off any part of the record that was written, so the next append follows the last good record
+            end = offset;
+            try {
+                channel.truncate(offset);
+            } catch (IOException truncateError) {
+                truncateError.printStackTrace();
+                logger.error("Unable to cut off a partly written score in " + file);
+            }
+            return;
+        }
+        tailCount++;
+        offerTop(new Pair<>(name, score));
+        index.addTail(score, offset);
+
+        if(tailCount >= COMPACT_AFTER && !compacting) {
+            compacting = true;
+            compactor.submit(this::compact);
+        }
+    }
+
+    /**
+     * Get the best scores kept in memory
+     * @return up to TOP_K scores, best first
+     */
+    public synchronized List<Pair<String, Integer>> getTopScores() {
+        var scores = new ArrayList<>(top);
+        scores.sort(BEST_FIRST);
+        return scores;
+    }
+
+    /**
+     * Get the best scores from the index, reading their names from the log
+     * @param n number of scores wanted
+     * @return up to n scores, best first
+     */
+    public synchronized List<Pair<String, Integer>> getTopScores(int n) {
+        if(n <= top.size()) {
+            var scores = getTopScores();
+            return scores.subList(0, n);
+        }
+        var scores = new ArrayList<Pair<String, Integer>>();
+        for(long offset : index.topOffsets(n)) {
+            var record = readAt(offset);
+            if(record != null) {
+                scores.add(record);
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Get the rank of a score among every score in the log
+     * @param score the score
+     * @return 1 for the best score, ties sharing the better rank
+     */
+    public synchronized long rankOf(int score) {
+        return index.countAbove(score) + 1;
+    }
+
+    /**
+     * Get the percentage of scores in the log which are lower than a score
+     * @param score the score
+     * @return percentile from 0 to 100
+     */
+    public synchronized double percentileOf(int score) {
+        long size = index.size();
+        if(size == 0) {
+            return 100;
+        }
+        long atLeast = score == Integer.MIN_VALUE ? size : index.countAbove(score - 1);
+        return 100.0 * (size - atLeast) / size;
+    }
+
+    /**
+     * Get the best score
+     * @return the best score, or 0 if there are none
+     */
+    public synchronized int getTopScore() {
+        int best = 0;
+        for(var record : top) {
+            best = Math.max(best, record.getValue());
+        }
+        return best;
+    }
+
+    /**
+     * Get the number of scores in the log
+     * @return number of scores
+     */
+    public synchronized long getCount() {
+        return sortedCount + tailCount;
+    }
+
+    /**
+     * Load the log again if the file has been changed by something else
+     * @return true if the log was reloaded
+     */
+    public synchronized boolean reloadIfChanged() {
+        try {
+            if(compacting || !Files.exists(file) || Files.size(file) == end) {
+                return false;
+            }
+            logger.info("Score log changed on disk, reloading");
+            if(channel != null) {
+                channel.close();
+            }
+            open();
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to reload score log " + file);
+            return false;
+        }
+    }
+
+    /**
+     * Merge the unsorted tail into the sorted section. The sorted section is already best first, so only the tail up
+     * to the current end is sorted; the two runs are then merged straight into a temporary file without holding the
+     * lock. Anything appended meanwhile is copied across before the file is swapped in.
+     */
+    protected void compact() {
+        long snapshotEnd;
+        long snapshotTail;
+        long snapshotSorted;
+        long snapshotSortedEnd;
+        synchronized (this) {
+            snapshotEnd = end;
+            snapshotTail = tailCount;
+            snapshotSorted = sortedCount;
+            snapshotSortedEnd = sortedEnd;
+        }
+        logger.info("Compacting score log");
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            int total = (int) (snapshotSorted + snapshotTail);
+            int[] scores = new int[total];
+            long[] offsets = new long[total];
+            FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            try (out; FileChannel snapshot = FileChannel.open(file, StandardOpenOption.READ)) {
+                //Only the tail needs sorting
+                var tail = new ArrayList<Pair<String, Integer>>();
+                var in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(snapshot.position(snapshotSortedEnd))));
+                for(long i = 0; i < snapshotTail; i++) {
+                    var record = readRecord(in);
+                    if(record == null) {
+                        throw new IOException("Unsorted section of " + file + " is damaged");
+                    }
+                    tail.add(record);
+                }
+                tail.sort(BEST_FIRST);
+
+                //Merge it with the sorted section as it is read, older scores first on ties. Records are only moved,
+                //so the new sorted section ends where the old tail did.
+                in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(snapshot.position(HEADER))));
+                var stream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)));
+                writeHeader(stream, total, snapshotEnd);
+                var crc = new CRC32();
+                long sortedRead = 0;
+                Pair<String, Integer> sorted = null;
+                int next = 0;
+                long offset = HEADER;
+                for(int i = 0; i < total; i++) {
+                    if(sorted == null && sortedRead < snapshotSorted) {
+                        sorted = readRecord(in);
+                        sortedRead++;
+                        if(sorted == null) {
+                            throw new IOException("Sorted section of " + file + " is damaged");
+                        }
+                    }
+                    Pair<String, Integer> record;
+                    if(sorted != null && (next == tail.size() || sorted.getValue() >= tail.get(next).getValue())) {
+                        record = sorted;
+                        sorted = null;
+                    } else {
+                        record = tail.get(next++);
+                    }
+                    scores[i] = record.getValue();
+                    offsets[i] = offset;
+                    offset += writeRecord(stream, crc, record);
+                }
+                stream.flush();
+                if(offset != snapshotEnd) {
+                    throw new IOException("Merged scores do not fill the sorted section of " + file);
+                }
+
+                synchronized (this) {
+                    //Carry over scores appended while merging
+                    long copied = channel.transferTo(snapshotEnd, end - snapshotEnd, out);
+                    out.force(true);
+                    channel.close();
+                    try {
+                        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                    } finally {
+                        //Reopen whichever log is in place, so scores can still be appended if the move failed
+                        reopen();
+                    }
+                    if(channel == null) {
+                        throw new IOException("Compacted score log could not be reopened");
+                    }
+                    sortedCount = total;
+                    sortedEnd = snapshotEnd;
+                    tailCount -= snapshotTail;
+
+                    //Index the new sorted section, then the scores carried over after it
+                    index.write(scores, offsets, total, sortedEnd);
+                    index.clearTail();
+                    end = sortedEnd;
+                    scanTail(false);
+                    if(end != sortedEnd + copied) {
+                        logger.error("Carried over scores did not read back cleanly");
+                    }
+                    logger.info("Compacted score log to " + sortedCount + " sorted scores");
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to compact score log " + file);
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException deleteError) {
+                logger.error("Unable to delete " + temp);
+            }
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    /**
+     * Open the channel to the log again after it was closed to swap the file. If it can't be opened the channel is left
+     * null, so appends report that the log is not open.
+     */
+    private void reopen() {
+        channel = null;
+        try {
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to reopen score log " + file);
+        }
+    }
+
+    /**
+     * Write a header and sorted records to a new file
+     * @param target file to write
+     * @param records records, best first
+     * @return channel to the file, positioned after the sorted section
+     * @throws IOException if the file can't be written
+     */
+    protected FileChannel writeSorted(Path target, List<Pair<String, Integer>> records) throws IOException {
+        long sectionEnd = HEADER;
+        for(var record : records) {
+            sectionEnd += recordSize(record.getKey().getBytes(StandardCharsets.UTF_8).length);
+        }
+        FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        var stream = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(out)));
+        writeHeader(stream, records.size(), sectionEnd);
+        var crc = new CRC32();
+        for(var record : records) {
+            writeRecord(stream, crc, record);
+        }
+        stream.flush();
+        out.force(true);
+        return out;
+    }
+
+    /**
+     * Write the header of a log
+     * @param stream stream at the start of the file
+     * @param count number of records in the sorted section
+     * @param sectionEnd offset just after the sorted section
+     * @throws IOException if the header can't be written
+     */
+    private void writeHeader(DataOutputStream stream, long count, long sectionEnd) throws IOException {
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        stream.writeLong(count);
+        stream.writeLong(sectionEnd);
+    }
+
+    /**
+     * Write a record with its length and checksum
+     * @param stream stream to write to
+     * @param crc checksum to reuse
+     * @param record the record
+     * @return bytes written
+     * @throws IOException if the record can't be written
+     */
+    private int writeRecord(DataOutputStream stream, CRC32 crc, Pair<String, Integer> record) throws IOException {
+        byte[] nameBytes = record.getKey().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer payload = ByteBuffer.allocate(4 + nameBytes.length);
+        payload.putInt(record.getValue());
+        payload.put(nameBytes);
+        crc.reset();
+        crc.update(payload.array());
+        stream.writeInt(payload.capacity());
+        stream.write(payload.array());
+        stream.writeInt((int) crc.getValue());
+        return recordSize(nameBytes.length);
+    }
+
+    /**
+     * Read the next record, checking its length and checksum
+     * @param in stream positioned at a record
+     * @return the record, or null at the end of the file or a damaged record
+     */
+    protected Pair<String, Integer> readRecord(DataInputStream in) {
+        try {
+            int length = in.readInt();
+            if(length < 4 || length > MAX_RECORD) {
+                return null;
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            int checksum = in.readInt();
+            var crc = new CRC32();
+            crc.update(payload);
+            if((int) crc.getValue() != checksum) {
+                return null;
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(payload);
+            int score = buffer.getInt();
+            return new Pair<>(new String(payload, 4, length - 4, StandardCharsets.UTF_8), score);
+        } catch (IOException e) {
+            return null; //End of file, possibly part way through a record
+        }
+    }
+
+    /**
+     * Read the record at an offset
+     * @param offset position of the record
+     * @return the record, or null if it can't be read
+     */
+    private Pair<String, Integer> readAt(long offset) {
+        try {
+            ByteBuffer length = ByteBuffer.allocate(4);
+            channel.read(length, offset);
+            length.flip();
+            int size = length.getInt();
+            if(size < 4 || size > MAX_RECORD) {
+                return null;
+            }
+            ByteBuffer record = ByteBuffer.allocate(4 + size + 4);
+            while(record.hasRemaining() && channel.read(record, offset + record.position()) > 0) {
+                //Keep reading until the whole record is in
+            }
+            return readRecord(new DataInputStream(new ByteArrayInputStream(record.array())));
+        } catch (IOException | java.nio.BufferUnderflowException e) {
+            e.printStackTrace();
+            logger.error("Unable to read score at " + offset);
+            return null;
+        }
+    }
+
+    /**
+     * Get a stream reading the log from an offset
+     * @param offset position to start reading from
+     * @return buffered stream over the log
+     * @throws IOException if the log can't be read
+     */
+    private DataInputStream reader(long offset) throws IOException {
+        //Not closed, as that would close the channel too
+        return new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(offset))));
+    }
+
+    /**
+     * Keep a record if it is among the best TOP_K
+     * @param record the record
+     */
+    private void offerTop(Pair<String, Integer> record) {
+        top.add(record);
+        if(top.size() > TOP_K) {
+            top.poll();
+        }
+    }
+
+    /**
+     * Get the size of a record on disk
+     * @param nameLength length of the UTF-8 name in bytes
+     * @return bytes taken by the record
+     */
+    protected static int recordSize(int nameLength) {
+        return 4 + 4 + nameLength + 4;
+    }
+}
@@ -0,0 +1,219 @@
+package uk.ac.soton.comp1206.scores;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import uk.ac.soton.comp1206.game.GameStatistics;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * The StatsStore keeps the running statistics of every local player in stats.dat.
+ *
+ * The file holds one entry per player with their totals written as variable-length numbers, so it stays small
+ * however many games are played and loads in one short read. Finishing a game updates the player's totals in memory
+ * and rewrites the file through a temporary file and an atomic rename. Use it from the ScoreIO thread.
+ */
+public class StatsStore {
+
+    private static final Logger logger = LogManager.getLogger(StatsStore.class);
+
+    /**
+     * Identifies a statistics file ("TSTA")
+     */
+    public static final int MAGIC = 0x54535441;
+
+    /**
+     * Current file format
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The shared store
+     */
+    private static StatsStore instance;
+
+    /**
+     * The statistics file
+     */
+    private final Path file;
+
+    /**
+     * Statistics of each player
+     */
+    private final HashMap<String, PlayerStats> players = new HashMap<>();
+
+    /**
+     * Get the shared store (stats.dat), loading it the first time
+     * @return the statistics store
+     */
+    public static synchronized StatsStore getDefault() {
+        if(instance == null) {
+            instance = new StatsStore(Paths.get("stats.dat"));
+        }
+        return instance;
+    }
+
+    /**
+     * Open a statistics store, loading the file if it exists
+     * @param file the statistics file
+     */
+    public StatsStore(Path file) {
+        this.file = file.toAbsolutePath();
+        load();
+    }
+
+    /**
+     * Add a finished game to a player's statistics and save them
+     * @param name name of the player
+     * @param game statistics of the game
+     */
+    public synchronized void record(String name, GameStatistics game) {
+        players.computeIfAbsent(name, PlayerStats::new).add(game);
+        save();
+    }
+
+    /**
+     * Get a copy of every player's statistics, most games first
+     * @return statistics of each player
+     */
+    public synchronized List<PlayerStats> getPlayers() {
+        var copies = new ArrayList<PlayerStats>(players.size());
+        for(PlayerStats stats : players.values()) {
+            copies.add(stats.copy());
+        }
+        copies.sort((a, b) -> Long.compare(b.getGames(), a.getGames()));
+        return copies;
+    }
+
+    /**
+     * Load the statistics file, if there is one. Players are only kept once the whole file has been read; if any of
+     * it can't be read, the file is moved aside to stats.dat.corrupt so the next save doesn't lose it.
+     */
+    private void load() {
+        if(!Files.exists(file)) {
+            return;
+        }
+        var loaded = new HashMap<String, PlayerStats>();
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            read(in, loaded);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Statistics file " + file + " is not readable, starting again");
+            try {
+                Files.move(file, file.resolveSibling(file.getFileName() + ".corrupt"),
+                        StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveError) {
+                moveError.printStackTrace();
+                logger.error("Unable to move aside " + file);
+            }
+            return;
+        }
+        players.putAll(loaded);
+        logger.info("Loaded statistics of " + players.size() + " players");
+    }
+
+    /**
+     * Read every player's statistics from a statistics file
+     * @param in stream at the start of the file
+     * @param loaded map to add each player to
+     * @throws IOException if the file is the wrong format, damaged or ends early
+     */
+    private void read(DataInputStream in, HashMap<String, PlayerStats> loaded) throws IOException {
+        if(in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not a statistics file, or an unknown version");
+        }
+        int count = (int) readVarLong(in);
+        for(int i = 0; i < count; i++) {
+            var stats = new PlayerStats(in.readUTF());
+            stats.games = readVarLong(in);
+            stats.pieces = readVarLong(in);
+            stats.timeouts = readVarLong(in);
+            stats.totalScore = readVarLong(in);
+            stats.bestScore = readVarLong(in);
+            stats.bestMove = readVarLong(in);
+            stats.moveMillis = readVarLong(in);
+            stats.longestStreak = readVarLong(in);
+            long buckets = readVarLong(in);
+            for(long lines = 0; lines < buckets; lines++) {
+                stats.linesByCount[(int) Math.min(lines, PlayerStats.LINE_BUCKETS - 1)] += readVarLong(in);
+            }
+            loaded.put(stats.getName(), stats);
+        }
+    }
+
+    /**
+     * Write every player's statistics to a temporary file, then rename it over the statistics file
+     */
+    private void save() {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeVarLong(out, players.size());
+            for(PlayerStats stats : players.values()) {
+                out.writeUTF(stats.getName());
+                writeVarLong(out, stats.games);
+                writeVarLong(out, stats.pieces);
+                writeVarLong(out, stats.timeouts);
+                writeVarLong(out, stats.totalScore);
+                writeVarLong(out, stats.bestScore);
+                writeVarLong(out, stats.bestMove);
+                writeVarLong(out, stats.moveMillis);
+                writeVarLong(out, stats.longestStreak);
+                writeVarLong(out, PlayerStats.LINE_BUCKETS);
+                for(long moves : stats.linesByCount) {
+                    writeVarLong(out, moves);
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to write statistics to " + temp);
+            return;
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            e.printStackTrace();
+            logger.error("Unable to replace " + file);
+        }
+    }
+
+    /**
+     * Write a non-negative number using 7 bits per byte, with the top bit set on every byte but the last
+     * @param out the stream
+     * @param value the number
+     * @throws IOException if the write fails
+     */
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    /**
+     * Read a number written by writeVarLong
+     * @param in the stream
+     * @return the number
+     * @throws IOException if the read fails
+     */
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while((b & 0x80) != 0);
+        return value;
+    }
+}
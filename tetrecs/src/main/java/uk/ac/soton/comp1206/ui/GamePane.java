@@ -1,9 +1,14 @@
 package uk.ac.soton.comp1206.ui;
 
+import javafx.beans.InvalidationListener;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.SimpleDoubleProperty;
+import javafx.beans.value.ChangeListener;
 import javafx.geometry.Pos;
 import javafx.scene.layout.*;
 import javafx.scene.transform.Scale;
 import javafx.scene.transform.Translate;
+import javafx.stage.Window;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -17,6 +22,10 @@ import org.apache.logging.log4j.Logger;
  * It uses the width and height given which should match the main window size. This will be the base drawing resolution,
  * but will be scaled up or down as the window is resized.
  *
+ * The render scale is the pane's scale multiplied by the screen's output scale: how many device pixels each unit of
+ * the base drawing resolution covers. Canvases which draw at native resolution size themselves from it instead of
+ * being bitmap scaled. This can be turned off with -Dtetrecs.render=scaled.
+ *
  * You should not need to modify this class
  */
 public class GamePane extends StackPane {
@@ -28,6 +37,40 @@ public class GamePane extends StackPane {
     private double scalar = 1;
     private final boolean autoScale = true;
 
+    /**
+     * Whether canvases should draw at the native resolution of the display, rather than be scaled up
+     */
+    public static final boolean NATIVE = !"scaled".equals(System.getProperty("tetrecs.render"));
+
+    /**
+     * The scale and translation applied to everything inside, reused on every layout pass
+     */
+    private final Scale scale = new Scale(1, 1, 0, 0);
+    private final Translate translate = new Translate();
+
+    /**
+     * Lays out again when the output scale of the window changes
+     */
+    private final InvalidationListener outputScaleListener = observable -> requestLayout();
+
+    /**
+     * Moves the output scale listener to whichever window the scene is shown in. Every scene shares the same stage,
+     * so the listener is removed when the scene leaves it, or the stage would keep this pane and its scene alive.
+     */
+    private final ChangeListener<Window> windowListener = (observable, oldWindow, window) -> {
+        if(oldWindow != null) {
+            oldWindow.outputScaleXProperty().removeListener(outputScaleListener);
+        }
+        if(window != null) {
+            window.outputScaleXProperty().addListener(outputScaleListener);
+        }
+    };
+
+    /**
+     * Device pixels per unit of the base drawing resolution
+     */
+    private final SimpleDoubleProperty renderScale = new SimpleDoubleProperty(1);
+
     /**
      * Create a new scalable GamePane with the given drawing width and height.
      * @param width width
@@ -40,6 +83,35 @@ public class GamePane extends StackPane {
 
         getStyleClass().add("gamepane");
         setAlignment(Pos.TOP_LEFT);
+        getTransforms().setAll(translate, scale);
+
+        //Lay out again if the window moves to a screen with a different output scale
+        sceneProperty().addListener((observable, oldScene, scene) -> {
+            if(oldScene != null) {
+                oldScene.windowProperty().removeListener(windowListener);
+                windowListener.changed(oldScene.windowProperty(), oldScene.getWindow(), null);
+            }
+            if(scene != null) {
+                scene.windowProperty().addListener(windowListener);
+                windowListener.changed(scene.windowProperty(), null, scene.getWindow());
+            }
+        });
+    }
+
+    /**
+     * Get the scale currently applied to everything inside this pane
+     * @return scalar
+     */
+    public double getScalar() {
+        return scalar;
+    }
+
+    /**
+     * Get the number of device pixels per unit of the base drawing resolution, which is 1 if native rendering is off
+     * @return render scale property
+     */
+    public ReadOnlyDoubleProperty renderScaleProperty() {
+        return renderScale;
     }
 
     /**
@@ -73,9 +145,6 @@ public class GamePane extends StackPane {
             setScalar(scaleFactorHeight);
         }
 
-        //Set up the scale
-        Scale scale = new Scale(scalar,scalar);
-
         //Get the parent width and height
         var parentWidth = getWidth();
         var parentHeight = getHeight();
@@ -84,11 +153,32 @@ public class GamePane extends StackPane {
         var paddingLeft = (parentWidth - (width * scalar)) / 2.0;
         var paddingTop = (parentHeight - (height * scalar)) / 2.0;
 
-        //Perform the transformation
-        Translate translate = new Translate(paddingLeft, paddingTop);
-        scale.setPivotX(0);
-        scale.setPivotY(0);
-        getTransforms().setAll(translate, scale);
+        //Start on a whole device pixel, so native resolution canvases aren't shifted by a fraction of one
+        if(NATIVE) {
+            var outputScale = outputScale();
+            paddingLeft = Math.round(paddingLeft * outputScale) / outputScale;
+            paddingTop = Math.round(paddingTop * outputScale) / outputScale;
+        }
+
+        //Update the transformation in place
+        scale.setX(scalar);
+        scale.setY(scalar);
+        translate.setX(paddingLeft);
+        translate.setY(paddingTop);
+
+        //Only notifies listeners if the scale actually changed
+        renderScale.set(NATIVE ? scalar * outputScale() : 1);
+    }
+
+    /**
+     * Get the output scale of the screen the window is on, such as 2 on a high density display
+     * @return output scale, or 1 if the pane is not in a window yet
+     */
+    private double outputScale() {
+        if(getScene() == null || getScene().getWindow() == null) {
+            return 1;
+        }
+        return getScene().getWindow().getOutputScaleX();
     }
 
 }
@@ -1,6 +1,5 @@
 package uk.ac.soton.comp1206.ui;
 
-import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
@@ -11,7 +10,10 @@ import org.apache.logging.log4j.Logger;
 import uk.ac.soton.comp1206.App;
 import uk.ac.soton.comp1206.event.GameEndListener;
 import uk.ac.soton.comp1206.game.Game;
+import uk.ac.soton.comp1206.media.SoundBank;
 import uk.ac.soton.comp1206.network.Communicator;
+import uk.ac.soton.comp1206.network.OnlineLeaderboard;
+import uk.ac.soton.comp1206.network.ProtocolReplayer;
 import uk.ac.soton.comp1206.scene.*;
 
 /**
@@ -35,6 +37,21 @@ public class GameWindow {
 
     final Communicator communicator;
 
+    /**
+     * Cached online high scores, shared by every scene
+     */
+    private final OnlineLeaderboard leaderboard;
+
+    /**
+     * Replays a capture into the lobby, if requested with -Dtetrecs.replay=path
+     */
+    private ProtocolReplayer replayer;
+
+    /**
+     * Number of scenes which have finished initialising, so a replay can wait for the next scene to be listening
+     */
+    private int scenesReady = 0;
+
     /**
      * Create a new GameWindow attached to the given stage with the specified width and height
      * @param stage stage
@@ -56,8 +73,16 @@ public class GameWindow {
         //Setup default scene
         setupDefaultScene();
 
-        //Setup communicator
-        communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
+        //Setup communicator, or an offline one if replaying a capture
+        String replay = System.getProperty("tetrecs.replay");
+        if(replay != null) {
+            communicator = Communicator.offline();
+            replayer = new ProtocolReplayer(replay, Double.parseDouble(System.getProperty("tetrecs.replay.speed", "1")));
+        } else {
+            communicator = new Communicator("ws://ofb-labs.soton.ac.uk:9700");
+        }
+
+        leaderboard = new OnlineLeaderboard(communicator);
 
         //Go to menu
         startMenu();
@@ -74,6 +99,9 @@ public class GameWindow {
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Regular.ttf"),32);
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-Bold.ttf"),32);
         Font.loadFont(getClass().getResourceAsStream("/style/Orbitron-ExtraBold.ttf"),32);
+
+        //Decode every sound effect up front, so they play without delay
+        SoundBank.getDefault().preload();
     }
 
     /**
@@ -97,6 +125,13 @@ public class GameWindow {
         loadScene(new InstructionsScene(this));
     }
 
+    /**
+     * Display the Statistics Scene
+     */
+    public void startStats() {
+        loadScene(new StatsScene(this));
+    }
+
     /**
      * Display the Scores Scene
      */
@@ -105,10 +140,14 @@ public class GameWindow {
     }
 
     /**
-     * Starts the Lobby Scene
+     * Starts the Lobby Scene. When replaying a capture, the replay starts the first time the lobby opens.
      */
     public void startLobby() {
         loadScene(new LobbyScene(this));
+        if(replayer != null && !replayer.isStarted()) {
+            //Start after the lobby has initialised and added its listener
+            PerformanceCounters.runLater(() -> replayer.start(communicator, this));
+        }
     }
 
 
@@ -137,7 +176,45 @@ public class GameWindow {
         stage.setScene(scene);
 
         //Initialise the scene when ready
-        Platform.runLater(() -> currentScene.initialise());
+        PerformanceCounters.runLater(() -> {
+            currentScene.initialise();
+            sceneReady();
+        });
+    }
+
+    /**
+     * Called once a scene has initialised, waking anything waiting for it
+     */
+    private synchronized void sceneReady() {
+        scenesReady++;
+        notifyAll();
+    }
+
+    /**
+     * Get the number of scenes which have finished initialising so far
+     * @return scenes initialised
+     */
+    public synchronized int getScenesReady() {
+        return scenesReady;
+    }
+
+    /**
+     * Wait until another scene has initialised. Must not be called on the JavaFX thread.
+     * @param ready the number of scenes initialised, from getScenesReady, before the change was triggered
+     * @param timeout longest to wait, in milliseconds
+     * @return true if a scene initialised, false if the wait timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized boolean awaitSceneReady(int ready, long timeout) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeout;
+        while(scenesReady <= ready) {
+            long remaining = deadline - System.currentTimeMillis();
+            if(remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
     }
 
     /**
@@ -153,6 +230,9 @@ public class GameWindow {
      */
     public void cleanup() {
         logger.info("Clearing up previous scene");
+        if(currentScene != null) {
+            currentScene.cleanup();
+        }
         communicator.clearListeners();
     }
 
@@ -164,6 +244,14 @@ public class GameWindow {
         return scene;
     }
 
+    /**
+     * Get the stage (window) the game is shown in
+     * @return stage
+     */
+    public Stage getStage() {
+        return stage;
+    }
+
     /**
      * Get the width of the Game Window
      * @return width
@@ -188,4 +276,12 @@ public class GameWindow {
         return communicator;
     }
 
+    /**
+     * Get the cached online leaderboard
+     * @return online leaderboard
+     */
+    public OnlineLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
 }
@@ -0,0 +1,88 @@
+package uk.ac.soton.comp1206.ui;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * PerformanceCounters counts the work behind each frame, for the PerformanceHud.
+ *
+ * Each counter is a LongAdder, so counting is a single uncontended add on any thread and the counters can be left in
+ * all the time. The counters only ever go up; the HUD works out how much each one moved during a frame.
+ */
+public class PerformanceCounters {
+
+    /**
+     * Blocks painted, by a GameBlock or onto a board canvas
+     */
+    private static final LongAdder paints = new LongAdder();
+
+    /**
+     * Grid cells which changed value
+     */
+    private static final LongAdder gridChanges = new LongAdder();
+
+    /**
+     * Tasks handed to Platform.runLater
+     */
+    private static final LongAdder runLaters = new LongAdder();
+
+    /**
+     * Messages received from the server
+     */
+    private static final LongAdder messagesIn = new LongAdder();
+
+    /**
+     * Messages written to the server
+     */
+    private static final LongAdder messagesOut = new LongAdder();
+
+    /**
+     * Count a block being painted
+     */
+    public static void paint() {
+        paints.increment();
+    }
+
+    /**
+     * Count a grid cell changing value
+     */
+    public static void gridChange() {
+        gridChanges.increment();
+    }
+
+    /**
+     * Count a message received from the server
+     */
+    public static void messageIn() {
+        messagesIn.increment();
+    }
+
+    /**
+     * Count a message written to the server
+     */
+    public static void messageOut() {
+        messagesOut.increment();
+    }
+
+    /**
+     * Run a task on the JavaFX thread with Platform.runLater, counting it
+     * @param task the task
+     */
+    public static void runLater(Runnable task) {
+        runLaters.increment();
+        Platform.runLater(task);
+    }
+
+    /**
+     * Read every counter into an array, in the order paints, grid changes, runLaters, messages in, messages out
+     * @param into array of at least 5 elements to fill
+     */
+    public static void read(long[] into) {
+        into[0] = paints.sum();
+        into[1] = gridChanges.sum();
+        into[2] = runLaters.sum();
+        into[3] = messagesIn.sum();
+        into[4] = messagesOut.sum();
+    }
+}